@@ -0,0 +1,94 @@
+package application;
+
+import chess.BenchmarkPosition;
+import chess.ChessMatch;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+// One frame of the console game after a move, drawn the old way (clearScreen + printMatch through System.out)
+// and by BoardRenderer, redrawing everything or only what changed. Output goes through a PrintStream set up
+// like System.out over a stream that counts bytes and writes, i.e. the system calls a terminal would see;
+// the counts per frame are printed at the end of each benchmark.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    private BenchmarkPosition position;
+
+    private final CountingOutputStream counter = new CountingOutputStream();
+    private final PrintStream terminal = new PrintStream(new BufferedOutputStream(counter, 8192), true);
+    private final BoardRenderer renderer = new BoardRenderer(terminal);
+    private PrintStream systemOut;
+    // The position before and after the benchmark move, drawn in turn so every frame shows a move.
+    private ChessMatch[] frames;
+    private long frameCount;
+
+    @Setup
+    public void setUp() {
+        ChessMatch before = ChessMatch.fromFen(position.getFen());
+        ChessMatch after = ChessMatch.fromFen(position.getFen());
+        after.performChessMove(position.getSource(), position.getTarget());
+        frames = new ChessMatch[]{before, after};
+        systemOut = System.out;
+        System.setOut(terminal);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetCounts() {
+        counter.bytes = 0;
+        counter.writes = 0;
+        frameCount = 0;
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.setOut(systemOut);
+        System.out.printf("%n%,d bytes and %,d writes per frame%n", counter.bytes / Math.max(1, frameCount),
+                counter.writes / Math.max(1, frameCount));
+    }
+
+    @Benchmark
+    public void printMatch() {
+        UI.clearScreen();
+        UI.printMatch(frames[(int) (frameCount++ & 1)]);
+    }
+
+    @Benchmark
+    public void renderFull() throws IOException {
+        renderer.invalidate();
+        renderer.render(frames[(int) (frameCount++ & 1)], null, "Source: ");
+    }
+
+    @Benchmark
+    public void renderDiff() throws IOException {
+        renderer.render(frames[(int) (frameCount++ & 1)], null, "Source: ");
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long writes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            writes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            writes++;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package chess;
+
+// Positions the benchmarks run against, each with a quiet move for the side to move.
+public enum BenchmarkPosition {
+    OPENING("r1bqkbnr/pppp1ppp/2n5/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R w KQkq - 2 3", "f1", "c4"),
+    MIDDLEGAME("r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10", "a3", "a4"),
+    ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", "b4", "c4");
+
+    private final String fen;
+    private final String source;
+    private final String target;
+
+    BenchmarkPosition(String fen, String source, String target) {
+        this.fen = fen;
+        this.source = source;
+        this.target = target;
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    public ChessPosition getSource() {
+        return new ChessPosition(source.charAt(0), source.charAt(1) - '0');
+    }
+
+    public ChessPosition getTarget() {
+        return new ChessPosition(target.charAt(0), target.charAt(1) - '0');
+    }
+}
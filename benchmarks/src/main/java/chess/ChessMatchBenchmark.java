@@ -0,0 +1,94 @@
+package chess;
+
+import chess.engine.Evaluation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessMatchBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    private ChessMatch match;
+    private ChessPosition source;
+    private ChessPosition target;
+    private final int[] moves = new int[ChessMatch.MAX_MOVES];
+
+    @Setup
+    public void setUp() {
+        match = ChessMatch.fromFen(position.getFen());
+        source = position.getSource();
+        target = position.getTarget();
+    }
+
+    // Plays the quiet move and takes it back so every invocation starts from the same position.
+    @Benchmark
+    public ChessPiece performChessMove() {
+        ChessPiece captured = match.performChessMove(source, target);
+        match.unmakeMove();
+        return captured;
+    }
+
+    @Benchmark
+    public boolean testCheck() {
+        return match.testCheck(match.getCurrentPlayer());
+    }
+
+    @Benchmark
+    public boolean testCheckMate() {
+        return match.testCheckMate();
+    }
+
+    @Benchmark
+    public ChessPiece[][] getPieces() {
+        return match.getPieces();
+    }
+
+    @Benchmark
+    public PositionSnapshot snapshot() {
+        return match.snapshot();
+    }
+
+    @Benchmark
+    public ChessMatch copy() {
+        return match.copy();
+    }
+
+    @Benchmark
+    public ChessMatch fromFen() {
+        return ChessMatch.fromFen(position.getFen());
+    }
+
+    @Benchmark
+    public String toFen() {
+        return match.toFen();
+    }
+
+    @Benchmark
+    public int generateLegalMoves() {
+        return match.generateLegalMoves(moves, 0);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return Evaluation.evaluate(match);
+    }
+
+    @Benchmark
+    public int evaluateFromScratch() {
+        return Evaluation.evaluateFromScratch(match);
+    }
+
+    @Benchmark
+    public void perft3(Blackhole blackhole) {
+        blackhole.consume(new chess.perft.Perft(match, 3).count(3));
+    }
+}
@@ -0,0 +1,69 @@
+package chess;
+
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.PgnWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Reading a batch of random games from PGN in memory, with and without replaying them through the rules;
+// the score is per game.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PgnBenchmark {
+
+    private static final int GAMES = 100;
+
+    private byte[] pgn;
+
+    @Setup
+    public void setUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(1);
+        int[] moves = new int[ChessMatch.MAX_MOVES];
+        StringBuilder out = new StringBuilder();
+        PgnWriter writer = new PgnWriter(out);
+        for (int i = 0; i < GAMES; i++) {
+            ChessMatch match = new ChessMatch();
+            for (int ply = 0; ply < 120 && !match.isDraw(); ply++) {
+                int count = match.generateLegalMoves(moves, 0);
+                if (count == 0) break;
+                match.performChessMove(moves[random.nextInt(count)]);
+            }
+            writer.write(match, Map.of());
+        }
+        pgn = out.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public int read() throws IOException {
+        int plies = 0;
+        try (PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn)))) {
+            PgnGame game;
+            while ((game = reader.next()) != null) plies += game.getMoves().size();
+        }
+        return plies;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GAMES)
+    public int readAndReplay() throws IOException {
+        int plies = 0;
+        try (PgnReader reader = new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn)))) {
+            PgnGame game;
+            while ((game = reader.next()) != null) plies += game.replay().getMoveHistory().length;
+        }
+        return plies;
+    }
+}
@@ -0,0 +1,54 @@
+package chess;
+
+import boardgame.Piece;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PieceMovesBenchmark {
+
+    // A middlegame where every piece type of the side to move has room to move.
+    private static final String FEN = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Param({"P", "N", "B", "R", "Q", "K"})
+    public String piece;
+
+    private Piece subject;
+    private final int[] moves = new int[ChessMatch.MAX_MOVES];
+
+    @Setup
+    public void setUp() {
+        ChessMatch match = ChessMatch.fromFen(FEN);
+        byte code = PieceCode.of(pieceType(piece), match.getCurrentPlayer());
+        for (int square = 0; square < 64 && subject == null; square++) {
+            if (match.getBoard().code(square) == code) subject = match.getBoard().piece(square);
+        }
+    }
+
+    private static int pieceType(String symbol) {
+        return switch (symbol) {
+            case "P" -> PieceCode.PAWN;
+            case "N" -> PieceCode.KNIGHT;
+            case "B" -> PieceCode.BISHOP;
+            case "R" -> PieceCode.ROOK;
+            case "Q" -> PieceCode.QUEEN;
+            default -> PieceCode.KING;
+        };
+    }
+
+    @Benchmark
+    public boolean[][] possibleMoves() {
+        return subject.possibleMoves();
+    }
+
+    @Benchmark
+    public int generateMoves() {
+        return subject.generateMoves(moves, 0);
+    }
+}
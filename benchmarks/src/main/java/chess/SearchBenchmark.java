@@ -0,0 +1,44 @@
+package chess;
+
+import chess.engine.Search;
+import chess.engine.SearchLimits;
+import chess.engine.SearchResult;
+import chess.engine.TranspositionTable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Fixed-depth searches from an empty hash table, the cost of a reply without help from earlier searches.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+    @Param({"OPENING", "MIDDLEGAME", "ENDGAME"})
+    public BenchmarkPosition position;
+
+    @Param({"4"})
+    public int depth;
+
+    private ChessMatch match;
+    private Search search;
+
+    @Setup
+    public void setUp() {
+        match = ChessMatch.fromFen(position.getFen());
+        search = new Search(new TranspositionTable(16));
+    }
+
+    @Setup(Level.Invocation)
+    public void clearTable() {
+        search.getTable().clear();
+    }
+
+    @Benchmark
+    public SearchResult search() {
+        return search.search(match, SearchLimits.depth(depth));
+    }
+}
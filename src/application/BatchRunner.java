@@ -0,0 +1,208 @@
+package application;
+
+import chess.validation.BatchValidator;
+import chess.validation.MoveSequence;
+import chess.validation.ValidationResult;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Headless mode of the console game: plays games given as text through the rules and prints one result line
+// per game, nothing else. Each input line is a game, either its moves in long algebraic notation
+// ("e2e4 e7e5 g1f3") or a UCI position command ("position startpos moves e2e4 ..." or
+// "position fen <fen> moves ..."); blank lines and lines starting with # are skipped.
+//   java application.Main batch [--threads n] [--summary] [file...]
+// Without files the games are read from standard input. Games are validated in batches on a fork-join pool by
+// BatchValidator while the next batch is read; the output is
+//   <game number> VALID <result> <final FEN>
+//   <game number> ILLEGAL_MOVE at ply <n> (<move>)     (or MALFORMED_MOVE, NO_PIECE, INVALID_START)
+// With --summary only the totals are printed, on standard error like the timing always is.
+public class BatchRunner {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final BatchValidator validator;
+    private final ForkJoinPool pool;
+    private final Writer out;
+    private final boolean summaryOnly;
+    private long games;
+    private long valid;
+    private long plies;
+
+    public BatchRunner(ForkJoinPool pool, Writer out, boolean summaryOnly) {
+        this.validator = new BatchValidator(pool);
+        this.pool = pool;
+        this.out = out;
+        this.summaryOnly = summaryOnly;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean summaryOnly = false;
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                case "--summary" -> summaryOnly = true;
+                default -> files.add(Path.of(args[i]));
+            }
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(FileDescriptor.out), StandardCharsets.US_ASCII), 1 << 16);
+        BatchRunner runner = new BatchRunner(pool, out, summaryOnly);
+        long start = System.nanoTime();
+        if (files.isEmpty()) {
+            runner.run(Channels.newChannel(System.in));
+        } else {
+            for (Path file : files) {
+                try (FileChannel channel = FileChannel.open(file)) {
+                    runner.run(channel);
+                }
+            }
+        }
+        out.flush();
+        pool.shutdown();
+        long nanos = System.nanoTime() - start;
+        System.err.printf("%,d games, %,d valid, %,d invalid, %,d plies in %,d ms (%,d games/s)%n", runner.games,
+                runner.valid, runner.games - runner.valid, runner.plies, nanos / 1_000_000,
+                runner.games * 1_000_000_000L / Math.max(1, nanos));
+    }
+
+    // Validates every game of the channel and writes their results in input order.
+    public void run(ReadableByteChannel channel) throws IOException {
+        try (LineReader reader = new LineReader(channel)) {
+            List<MoveSequence> batch = readBatch(reader);
+            while (!batch.isEmpty()) {
+                List<MoveSequence> current = batch;
+                ForkJoinTask<ValidationResult[]> task = pool.submit(() -> validator.validate(current));
+                batch = readBatch(reader);
+                write(current, join(task));
+            }
+        }
+    }
+
+    private static ValidationResult[] join(ForkJoinTask<ValidationResult[]> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while validating", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private List<MoveSequence> readBatch(LineReader reader) throws IOException {
+        List<MoveSequence> batch = new ArrayList<>(BATCH_SIZE);
+        String line;
+        while (batch.size() < BATCH_SIZE && (line = reader.next()) != null) {
+            MoveSequence game = parse(line);
+            if (game != null) batch.add(game);
+        }
+        return batch;
+    }
+
+    private void write(List<MoveSequence> batch, ValidationResult[] results) throws IOException {
+        for (int i = 0; i < results.length; i++) {
+            games++;
+            if (results[i].isValid()) {
+                valid++;
+                plies += batch.get(i).size();
+            }
+            if (summaryOnly) continue;
+            out.write(Long.toString(games));
+            out.write(' ');
+            out.write(results[i].toString());
+            out.write('\n');
+        }
+    }
+
+    // The game on one line of input, null for a blank or comment line. A position command that names no
+    // start position gets an empty FEN, which validates as INVALID_START.
+    static MoveSequence parse(String line) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.charAt(0) == '#') return null;
+        String[] tokens = trimmed.split("\\s+");
+        if (!tokens[0].equals("position")) return new MoveSequence(null, tokens);
+        int i = 1;
+        String fen = "";
+        if (i < tokens.length && tokens[i].equals("startpos")) {
+            fen = null;
+            i++;
+        } else if (i < tokens.length && tokens[i].equals("fen")) {
+            StringBuilder placement = new StringBuilder();
+            for (i++; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                if (placement.length() > 0) placement.append(' ');
+                placement.append(tokens[i]);
+            }
+            fen = placement.toString();
+        }
+        if (i < tokens.length && tokens[i].equals("moves")) i++;
+        List<String> moves = new ArrayList<>(tokens.length - i);
+        for (; i < tokens.length; i++) moves.add(tokens[i]);
+        return new MoveSequence(fen, moves);
+    }
+
+    // Lines of a channel read through one 64 KB buffer, bytes taken as Latin-1; "\n" or "\r\n" ends a line.
+    static final class LineReader implements Closeable {
+
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        private final byte[] bytes = buffer.array();
+        private final StringBuilder line = new StringBuilder(256);
+        private int position;
+        private int limit;
+        private boolean endOfInput;
+
+        LineReader(ReadableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        // The next line without its terminator, or null at the end of the input.
+        String next() throws IOException {
+            line.setLength(0);
+            while (true) {
+                for (int i = position; i < limit; i++) {
+                    if (bytes[i] != '\n') continue;
+                    append(position, i);
+                    position = i + 1;
+                    int length = line.length();
+                    if (length > 0 && line.charAt(length - 1) == '\r') line.setLength(length - 1);
+                    return line.toString();
+                }
+                append(position, limit);
+                if (endOfInput) return line.length() > 0 ? line.toString() : null;
+                buffer.clear();
+                endOfInput = channel.read(buffer) < 0;
+                position = 0;
+                limit = buffer.position();
+            }
+        }
+
+        private void append(int from, int to) {
+            for (int i = from; i < to; i++) line.append((char) (bytes[i] & 0xff));
+            position = to;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
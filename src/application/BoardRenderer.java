@@ -0,0 +1,193 @@
+package application;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.Color;
+import chess.PieceCode;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// Draws the same screen as UI.printMatch, but each frame is built in one reusable byte buffer and handed to
+// the stream in a single write. After the first frame only what changed is sent: the squares whose piece or
+// highlight differs and the text lines that differ, each reached with a cursor-addressing escape, so a move
+// costs a few dozen bytes instead of a whole screen.
+public class BoardRenderer {
+
+    private static final byte[] CLEAR_SCREEN = ascii("\033[H\033[2J");
+    private static final byte[] CLEAR_TO_END_OF_LINE = ascii("\033[K");
+    private static final byte[] CLEAR_TO_END_OF_SCREEN = ascii("\033[J");
+    private static final byte[] HIGHLIGHT = ascii(UI.ANSI_BLUE_BACKGROUND);
+    private static final byte[] WHITE = ascii(UI.ANSI_WHITE);
+    private static final byte[] BLACK = ascii(UI.ANSI_YELLOW);
+    private static final byte[] RESET = ascii(UI.ANSI_RESET);
+    private static final String LETTERS = " PNBRQK";
+
+    // Screen rows, 1-based as the terminal counts them: ranks 8 to 1, the file letters, a blank line, then
+    // the text lines, the prompt being the last of them.
+    private static final int FILES_ROW = 9;
+    private static final int FIRST_LINE_ROW = 11;
+    private static final int LINES = 9;
+    private static final int PROMPT_LINE = LINES - 1;
+    // A square is drawn at column 3 + 2 * file, after the rank number and a space.
+    private static final int FIRST_SQUARE_COLUMN = 3;
+
+    // Squares as they are on the screen: piece code, plus 16 when highlighted; -1 forces a redraw.
+    private final int[] shown = new int[64];
+    private final String[] shownLines = new String[LINES];
+    private final StringBuilder[] lines = new StringBuilder[LINES];
+    private final OutputStream out;
+    private byte[] buffer = new byte[4096];
+    private int length;
+    private boolean drawn;
+
+    public BoardRenderer(OutputStream out) {
+        this.out = out;
+        for (int i = 0; i < LINES; i++) lines[i] = new StringBuilder(64);
+    }
+
+    // Next frame clears the screen and draws everything, e.g. after something else wrote over it.
+    public void invalidate() {
+        drawn = false;
+    }
+
+    // Draws the match, highlighting the squares set in possibleMoves (may be null), and leaves the cursor
+    // after the prompt.
+    public void render(ChessMatch match, boolean[][] possibleMoves, String prompt) throws IOException {
+        length = 0;
+        if (!drawn) {
+            put(CLEAR_SCREEN);
+            Arrays.fill(shown, -1);
+            Arrays.fill(shownLines, null);
+            for (int row = 0; row < 8; row++) {
+                moveTo(row + 1, 1);
+                put((char) ('8' - row));
+                put(' ');
+            }
+            moveTo(FILES_ROW, 1);
+            put("  a b c d e f g h");
+            drawn = true;
+        }
+        renderSquares(match, possibleMoves);
+        renderLines(match, prompt);
+        out.write(buffer, 0, length);
+        out.flush();
+    }
+
+    // Bytes handed to the stream by the last render.
+    public int getLastFrameSize() {
+        return length;
+    }
+
+    private void renderSquares(ChessMatch match, boolean[][] possibleMoves) {
+        int cursor = -1;
+        for (int square = 0; square < 64; square++) {
+            int row = square >> 3;
+            int column = square & 7;
+            int code = match.getPieceCode(square);
+            int cell = possibleMoves != null && possibleMoves[row][column] ? code | 16 : code;
+            if (shown[square] == cell) continue;
+            shown[square] = cell;
+            // Squares changed one after the other on a rank need no new cursor position.
+            if (cursor != square) moveTo(row + 1, FIRST_SQUARE_COLUMN + 2 * column);
+            putSquare(code, cell >= 16);
+            cursor = column == 7 ? -1 : square + 1;
+        }
+    }
+
+    private void putSquare(int code, boolean highlighted) {
+        if (highlighted) put(HIGHLIGHT);
+        if (code == PieceCode.EMPTY) {
+            put('-');
+        } else {
+            put(PieceCode.color(code) == Color.WHITE ? WHITE : BLACK);
+            put(LETTERS.charAt(PieceCode.type(code)));
+        }
+        put(RESET);
+        put(' ');
+    }
+
+    private void renderLines(ChessMatch match, String prompt) {
+        for (StringBuilder line : lines) line.setLength(0);
+        List<ChessPiece> captured = match.getCapturedPieces();
+        lines[0].append("Captured pieces");
+        appendCaptured(lines[1].append("White: "), captured, Color.WHITE);
+        appendCaptured(lines[2].append("Black: "), captured, Color.BLACK);
+        lines[4].append("Turn: ").append(match.getTurn());
+        if (match.isStalemate()) {
+            lines[5].append("STALEMATE!!!");
+            lines[6].append("DRAW!");
+        } else if (!match.isCheckMate()) {
+            lines[5].append("Waiting Player: ").append(match.getCurrentPlayer());
+            if (match.isCheck()) lines[6].append("CHECK!!!");
+        } else {
+            lines[5].append("CHECKMATE!!!");
+            lines[6].append("WINNER! ").append(match.getWinner());
+        }
+        lines[PROMPT_LINE].append(prompt);
+
+        for (int i = 0; i < PROMPT_LINE; i++) {
+            if (shownLines[i] != null && shownLines[i].contentEquals(lines[i])) continue;
+            shownLines[i] = lines[i].toString();
+            moveTo(FIRST_LINE_ROW + i, 1);
+            put(lines[i]);
+            put(CLEAR_TO_END_OF_LINE);
+        }
+        // Always rewritten: whatever was typed after the last prompt, and any message below it, goes away.
+        moveTo(FIRST_LINE_ROW + PROMPT_LINE, 1);
+        put(lines[PROMPT_LINE]);
+        put(CLEAR_TO_END_OF_SCREEN);
+    }
+
+    private static void appendCaptured(StringBuilder line, List<ChessPiece> captured, Color color) {
+        line.append(color == Color.WHITE ? UI.ANSI_WHITE : UI.ANSI_YELLOW).append('[');
+        boolean first = true;
+        for (ChessPiece piece : captured) {
+            if (piece.getColor() != color) continue;
+            if (!first) line.append(", ");
+            line.append(piece);
+            first = false;
+        }
+        line.append(']').append(UI.ANSI_RESET);
+    }
+
+    private void moveTo(int row, int column) {
+        put('\033');
+        put('[');
+        putNumber(row);
+        put(';');
+        putNumber(column);
+        put('H');
+    }
+
+    private void putNumber(int value) {
+        if (value >= 10) putNumber(value / 10);
+        put((char) ('0' + value % 10));
+    }
+
+    private void put(CharSequence text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) put(c);
+            else put(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private void put(char c) {
+        if (length == buffer.length) buffer = Arrays.copyOf(buffer, length * 2);
+        buffer[length++] = (byte) c;
+    }
+
+    private void put(byte[] bytes) {
+        if (length + bytes.length > buffer.length) buffer = Arrays.copyOf(buffer, Math.max(length * 2, length + bytes.length));
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -1,38 +1,43 @@
 package application;
 
+import application.server.MatchServer;
 import chess.ChessMatch;
 import chess.ChessPiece;
 import chess.ChessPosition;
 import chess.exceptions.ChessException;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.Scanner;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("server")) {
+            MatchServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0 && args[0].equals("batch")) {
+            BatchRunner.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         ChessMatch chessMatch = new ChessMatch();
+        BoardRenderer renderer = new BoardRenderer(System.out);
         Scanner sc = new Scanner(System.in);
-        while (!chessMatch.isCheckMate()) {
+        while (!chessMatch.isCheckMate() && !chessMatch.isStalemate()) {
             try {
-                UI.clearScreen();
-                UI.printMatch(chessMatch);
-                System.out.println();
-                System.out.print("Source: ");
+                renderer.render(chessMatch, null, "Source: ");
                 ChessPosition source = UI.readChessPosition(sc);
                 boolean[][] possibleMoves = chessMatch.possibleMoves(source);
-                UI.clearScreen();
-                System.out.println();
-                UI.printBoard(chessMatch.getPieces(), possibleMoves);
-                System.out.print("Target: ");
+                renderer.render(chessMatch, possibleMoves, "Target: ");
                 ChessPosition target = UI.readChessPosition(sc);
-                System.out.println();
 
                 chessMatch.performChessMove(source, target);
 
                 if (chessMatch.getPromoted() != null) {
-                    System.out.println("Enter piece for promotion (B/N/R/Q: ");
+                    renderer.render(chessMatch, null, "Enter piece for promotion (B/N/R/Q): ");
                     String type = sc.nextLine();
                     chessMatch.replacePromotedPiece(type);
                 }
@@ -42,6 +47,7 @@ public class Main {
                 sc.nextLine();
             }
         }
-        UI.clearScreen();
+        renderer.render(chessMatch, null, "");
+        System.out.println();
     }
 }
\ No newline at end of file
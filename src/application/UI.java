@@ -45,14 +45,17 @@ public class UI {
         System.out.println();
         printCapturedPieces(chessMatch.getCapturedPieces());
         System.out.println("Turn: " + chessMatch.getTurn());
-        if (!chessMatch.isCheckMate()) {
+        if (chessMatch.isStalemate()) {
+            System.out.println("STALEMATE!!!");
+            System.out.println("DRAW!");
+        } else if (!chessMatch.isCheckMate()) {
             System.out.println("Waiting Player: " + chessMatch.getCurrentPlayer());
             if (chessMatch.isCheck()) {
                 System.out.println("CHECK!!!");
             }
         } else {
             System.out.println("CHECKMATE!!!");
-            System.out.println("WINNER! " + chessMatch.getCurrentPlayer());
+            System.out.println("WINNER! " + chessMatch.getWinner());
         }
 
     }
@@ -0,0 +1,169 @@
+package application.server;
+
+import chess.ChessPosition;
+import chess.Color;
+import chess.exceptions.ChessException;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+
+// One client, served by its own (virtual) thread. Requests are answered with a line starting with OK or
+// ERROR; lines pushed by the opponent's thread (START, MOVED, PROMOTED, LEFT) or by a spectator feed
+// (S, D, R, END) may come in between.
+final class Connection implements Runnable {
+
+    private final MatchServer server;
+    private final LineChannel channel;
+    private Room room;
+    private Room watched;
+    private SpectatorFeed.Subscriber subscription;
+
+    Connection(MatchServer server, SocketChannel channel) {
+        this.server = server;
+        this.channel = new LineChannel(channel);
+    }
+
+    @Override
+    public void run() {
+        try (channel) {
+            String line;
+            while ((line = channel.readLine()) != null) {
+                String[] words = line.trim().split("\\s+");
+                if (words[0].equalsIgnoreCase("QUIT")) {
+                    send("OK BYE");
+                    break;
+                }
+                String reply = handle(words);
+                if (reply != null) send(reply);
+            }
+        } catch (IOException e) {
+            // The client went away; its seat is freed below.
+        } finally {
+            leaveRoom();
+            unwatch();
+            server.disconnected();
+        }
+    }
+
+    private String handle(String[] words) {
+        try {
+            return switch (words[0].toUpperCase()) {
+                case "CREATE" -> create();
+                case "JOIN" -> join(words);
+                case "MOVE" -> move(words);
+                case "PROMOTE" -> promote(words);
+                case "BOARD" -> "OK BOARD " + currentRoom().board();
+                case "WATCH" -> watch(words);
+                case "UNWATCH" -> {
+                    unwatch();
+                    yield "OK UNWATCHED";
+                }
+                case "LEAVE" -> {
+                    leaveRoom();
+                    yield "OK LEFT";
+                }
+                default -> "ERROR Unknown command: " + words[0];
+            };
+        } catch (ChessException | IllegalStateException | IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        }
+    }
+
+    private String create() {
+        if (room != null) throw new ChessException("Leave the current room first.");
+        room = server.createRoom(this);
+        return "OK CREATED " + room.getId() + " " + Color.WHITE;
+    }
+
+    private String join(String[] words) {
+        if (room != null) throw new ChessException("Leave the current room first.");
+        if (words.length != 2) throw new ChessException("Usage: JOIN <room>");
+        Room target = server.getRoom(parseId(words[1]));
+        Color color = target.join(this);
+        if (color == null) throw new ChessException("Room " + target.getId() + " is full.");
+        room = target;
+        // Replied here rather than by run() so the opponent can't move before this client hears it joined.
+        push("OK JOINED " + target.getId() + " " + color);
+        Connection opponent = target.opponentOf(this);
+        if (opponent != null) opponent.push("START " + target.getId());
+        return null;
+    }
+
+    private String move(String[] words) {
+        if (words.length < 3 || words.length > 4) throw new ChessException("Usage: MOVE <source> <target> [B|N|R|Q]");
+        Room current = currentRoom();
+        String outcome = current.move(this, parsePosition(words[1]), parsePosition(words[2]), words.length == 4 ? words[3] : null);
+        Connection opponent = current.opponentOf(this);
+        if (opponent != null) opponent.push("MOVED " + outcome);
+        return "OK MOVED " + outcome;
+    }
+
+    private String promote(String[] words) {
+        if (words.length != 2) throw new ChessException("Usage: PROMOTE <B|N|R|Q>");
+        Room current = currentRoom();
+        String outcome = current.promote(this, words[1]);
+        Connection opponent = current.opponentOf(this);
+        if (opponent != null) opponent.push("PROMOTED " + outcome);
+        return "OK PROMOTED " + outcome;
+    }
+
+    private String watch(String[] words) {
+        if (words.length != 2) throw new ChessException("Usage: WATCH <room>");
+        unwatch();
+        Room target = server.getRoom(parseId(words[1]));
+        subscription = target.watch(this);
+        watched = target;
+        // Replied before the feed is started so OK WATCHING comes ahead of the first snapshot.
+        push("OK WATCHING " + target.getId());
+        subscription.start();
+        return null;
+    }
+
+    private void unwatch() {
+        if (watched == null) return;
+        watched.unwatch(subscription);
+        watched = null;
+        subscription = null;
+    }
+
+    private Room currentRoom() {
+        if (room == null) throw new ChessException("You are not in a room.");
+        return room;
+    }
+
+    private void leaveRoom() {
+        if (room == null) return;
+        Room current = room;
+        room = null;
+        Connection opponent = current.opponentOf(this);
+        if (current.leave(this)) server.removeRoom(current);
+        if (opponent != null) opponent.push("LEFT");
+    }
+
+    // Lines that are not replies to this client's own requests; a failed write just drops the line, the
+    // reading thread will see the broken connection.
+    void push(String line) {
+        try {
+            channel.writeLine(line);
+        } catch (IOException e) {
+            // ignored, see above
+        }
+    }
+
+    private void send(String line) throws IOException {
+        channel.writeLine(line);
+    }
+
+    private static ChessPosition parsePosition(String square) {
+        if (square.length() != 2) throw new ChessException("Invalid square: " + square);
+        return new ChessPosition(Character.toLowerCase(square.charAt(0)), square.charAt(1) - '0');
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            throw new ChessException("Invalid room: " + id);
+        }
+    }
+}
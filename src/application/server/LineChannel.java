@@ -0,0 +1,62 @@
+package application.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+// ASCII lines over a blocking channel with a few hundred bytes of buffer, instead of the tens of kilobytes
+// a Reader/Writer pair costs, so tens of thousands of connections stay cheap. Reads come from one thread;
+// writes may come from any thread and are serialized by a ReentrantLock rather than synchronized, so a
+// virtual thread blocked writing to a slow reader parks instead of pinning its carrier thread.
+final class LineChannel implements AutoCloseable {
+
+    static final int MAX_LINE = 1024;
+
+    private final ByteChannel channel;
+    private final ByteBuffer input = ByteBuffer.allocate(256).flip();
+    private final StringBuilder line = new StringBuilder();
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    LineChannel(ByteChannel channel) {
+        this.channel = channel;
+    }
+
+    // Returns null at end of stream.
+    String readLine() throws IOException {
+        line.setLength(0);
+        while (true) {
+            while (input.hasRemaining()) {
+                char c = (char) (input.get() & 0xFF);
+                if (c == '\n') return line.toString();
+                if (c == '\r') continue;
+                if (line.length() == MAX_LINE) throw new IOException("Line longer than " + MAX_LINE + " characters");
+                line.append(c);
+            }
+            input.clear();
+            int read = channel.read(input);
+            input.flip();
+            if (read < 0) {
+                if (line.length() == 0) return null;
+                throw new EOFException("Connection closed in the middle of a line");
+            }
+        }
+    }
+
+    void writeLine(String text) throws IOException {
+        ByteBuffer output = ByteBuffer.wrap((text + "\n").getBytes(StandardCharsets.US_ASCII));
+        writeLock.lock();
+        try {
+            while (output.hasRemaining()) channel.write(output);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,220 @@
+package application.server;
+
+import boardgame.Move;
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.Color;
+import chess.PieceCode;
+import chess.PositionSnapshot;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// Plays random games against a MatchServer, two connections per match plus any number of spectators, and
+// reports throughput and move round-trip latency. Without an address it starts a server in the same JVM on
+// a free port:
+//   LoadGenerator [matches] [pliesPerMatch] [spectatorsPerMatch] [address]
+public class LoadGenerator {
+
+    public static void main(String[] args) throws Exception {
+        int matches = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 80;
+        int spectators = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+        MatchServer server = null;
+        SocketAddress address;
+        if (args.length > 3) {
+            address = MatchServer.parseAddress(args[3]);
+        } else {
+            server = new MatchServer(new InetSocketAddress("127.0.0.1", 0));
+            server.start();
+            address = server.getAddress();
+        }
+
+        ExecutorService executor = MatchServer.newThreadPerTaskExecutor();
+        List<Future<long[]>> players = new ArrayList<>();
+        List<Future<long[]>> watchers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < matches; i++) {
+            CompletableFuture<Long> room = new CompletableFuture<>();
+            long seed = i;
+            players.add(executor.submit(() -> play(address, Color.WHITE, room, plies, seed)));
+            players.add(executor.submit(() -> play(address, Color.BLACK, room, plies, seed)));
+            for (int j = 0; j < spectators; j++) watchers.add(executor.submit(() -> watch(address, room)));
+        }
+
+        long[][] latencies = new long[players.size()][];
+        int failed = 0;
+        for (int i = 0; i < players.size(); i++) {
+            try {
+                latencies[i] = players.get(i).get();
+            } catch (ExecutionException e) {
+                if (failed++ == 0) System.err.println("Player failed: " + e.getCause());
+                latencies[i] = new long[0];
+            }
+        }
+        long[] feed = new long[2];
+        int lost = 0;
+        for (Future<long[]> watcher : watchers) {
+            try {
+                long[] received = watcher.get();
+                feed[0] += received[0];
+                feed[1] += received[1];
+            } catch (ExecutionException e) {
+                if (lost++ == 0) System.err.println("Spectator failed: " + e.getCause());
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        if (server != null) server.close();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("%,d matches, %,d moves in %,d ms (%,d moves/s), %d failed players%n",
+                matches, all.length, elapsed / 1_000_000, all.length * 1_000_000_000L / Math.max(1, elapsed), failed);
+        if (all.length > 0) {
+            System.out.printf("move round trip: p50 %,d us, p99 %,d us, p99.9 %,d us, max %,d us%n",
+                    percentile(all, 0.50) / 1000, percentile(all, 0.99) / 1000, percentile(all, 0.999) / 1000,
+                    all[all.length - 1] / 1000);
+        }
+        if (!watchers.isEmpty()) {
+            System.out.printf("%,d spectators received %,d deltas and %,d snapshots (late joins and resyncs), %d failed%n",
+                    watchers.size(), feed[0], feed[1], lost);
+        }
+    }
+
+    // Plays one side of a match with random legal moves, following the game on a local ChessMatch,
+    // and returns the round-trip time of each of its moves in nanoseconds.
+    private static long[] play(SocketAddress address, Color color, CompletableFuture<Long> room, int plies, long seed)
+            throws IOException, InterruptedException, ExecutionException {
+        SplittableRandom random = new SplittableRandom(seed * 2 + (color == Color.WHITE ? 0 : 1));
+        long[] latencies = new long[plies];
+        int made = 0;
+        try (LineChannel channel = new LineChannel(SocketChannel.open(address))) {
+            if (color == Color.WHITE) {
+                channel.writeLine("CREATE");
+                String[] created = expect(channel, "OK CREATED");
+                room.complete(Long.parseLong(created[2]));
+                expect(channel, "START");
+            } else {
+                channel.writeLine("JOIN " + room.get());
+                expect(channel, "OK JOINED");
+            }
+
+            ChessMatch match = new ChessMatch();
+            int[] moves = new int[ChessMatch.MAX_MOVES];
+            // Lines from the opponent that arrived while waiting for the reply to our own move.
+            ArrayDeque<String> pending = new ArrayDeque<>();
+            for (int ply = 0; ply < plies && !match.isDraw(); ply++) {
+                int count = match.generateLegalMoves(moves, 0);
+                if (count == 0) break;
+                if (match.getCurrentPlayer() == color) {
+                    int move = randomMove(moves, count, random);
+                    long sent = System.nanoTime();
+                    channel.writeLine("MOVE " + ChessMove.squareName(Move.from(move)) + " " + ChessMove.squareName(Move.to(move)));
+                    String line;
+                    // The opponent may already be answering before our own reply arrives.
+                    while (!(line = readLine(channel)).startsWith("OK MOVED")) {
+                        if (line.startsWith("MOVED") || line.equals("LEFT")) pending.add(line);
+                        else throw new IOException("Unexpected reply: " + line);
+                    }
+                    latencies[made++] = System.nanoTime() - sent;
+                    match.makeMove(move);
+                } else {
+                    String line = pending.isEmpty() ? readLine(channel) : pending.poll();
+                    if (line.equals("LEFT")) break;
+                    if (!line.startsWith("MOVED")) throw new IOException("Unexpected message: " + line);
+                    match.makeMove(findMove(line.split(" ")[1], moves, count));
+                }
+            }
+            channel.writeLine("QUIT");
+        }
+        return Arrays.copyOf(latencies, made);
+    }
+
+    // Follows a match from the spectator feed, checking every delta is the next one and a legal move, and
+    // returns the number of deltas and snapshots received.
+    private static long[] watch(SocketAddress address, CompletableFuture<Long> room)
+            throws IOException, InterruptedException, ExecutionException {
+        long deltas = 0;
+        long snapshots = 0;
+        try (LineChannel channel = new LineChannel(SocketChannel.open(address))) {
+            channel.writeLine("WATCH " + room.get());
+            String reply = readLine(channel);
+            // The players may have finished before we got here.
+            if (reply.startsWith("ERROR")) return new long[2];
+            if (!reply.startsWith("OK WATCHING")) throw new IOException("Unexpected reply: " + reply);
+
+            ChessMatch match = null;
+            int[] moves = new int[ChessMatch.MAX_MOVES];
+            long sequence = 0;
+            String line;
+            while (!(line = readLine(channel)).equals(SpectatorFeed.END)) {
+                String[] fields = line.split(" ", 3);
+                long next = Long.parseLong(fields[1]);
+                if (fields[0].equals("S")) {
+                    match = PositionSnapshot.decode(fields[2]).toMatch();
+                    snapshots++;
+                } else {
+                    if (match == null || next != sequence + 1) throw new IOException("Out of sequence: " + line);
+                    if (fields[0].equals("R")) match.unmakeMove();
+                    int move = Integer.parseUnsignedInt(fields[2], 16) & SpectatorFeed.MOVE_MASK;
+                    int count = match.generateLegalMoves(moves, 0);
+                    if (!contains(moves, count, move)) throw new IOException("Illegal delta: " + line);
+                    match.makeMove(move);
+                    deltas++;
+                }
+                sequence = next;
+            }
+            channel.writeLine("QUIT");
+        }
+        return new long[]{deltas, snapshots};
+    }
+
+    private static boolean contains(int[] moves, int count, int move) {
+        for (int i = 0; i < count; i++) {
+            if (moves[i] == move) return true;
+        }
+        return false;
+    }
+
+    // Random legal move, promoting to a queen since that is what the server does unless told otherwise.
+    private static int randomMove(int[] moves, int count, SplittableRandom random) {
+        while (true) {
+            int move = moves[random.nextInt(count)];
+            if (!ChessMove.isPromotion(move) || ChessMove.promotionType(move) == PieceCode.QUEEN) return move;
+        }
+    }
+
+    private static int findMove(String uci, int[] moves, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            if (ChessMove.toString(moves[i]).equals(uci)) return moves[i];
+        }
+        throw new IOException("Opponent played an illegal move: " + uci);
+    }
+
+    private static String[] expect(LineChannel channel, String prefix) throws IOException {
+        String line = readLine(channel);
+        if (!line.startsWith(prefix)) throw new IOException("Expected " + prefix + " but got: " + line);
+        return line.split(" ");
+    }
+
+    private static String readLine(LineChannel channel) throws IOException {
+        String line = channel.readLine();
+        if (line == null) throw new IOException("Server closed the connection");
+        return line;
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (fraction * sorted.length))];
+    }
+}
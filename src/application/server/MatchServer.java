@@ -0,0 +1,187 @@
+package application.server;
+
+import chess.ChessMatch;
+import chess.exceptions.ChessException;
+import chess.journal.GameJournal;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hosts many matches at once over a line protocol, one thread per connection:
+//   CREATE                 -> OK CREATED <room> WHITE
+//   JOIN <room>            -> OK JOINED <room> <color>, and START <room> to the player already seated
+//   MOVE e7 e8 [B|N|R|Q]   -> OK MOVED e7e8q [CAPTURE] [CHECK|CHECKMATE <winner>|DRAW], MOVED ... to the opponent
+//   PROMOTE <B|N|R|Q>      -> OK PROMOTED <square> <piece> [...], PROMOTED ... to the opponent
+//   BOARD                  -> OK BOARD <position>
+//   WATCH <room>           -> OK WATCHING <room>, then the spectator feed (see SpectatorFeed), UNWATCH
+//   LEAVE, QUIT
+// Addresses are "port", "host:port" or "unix:/path/to/socket". With a GameJournal every room's moves are
+// appended to it as they are played, and main resumes the games it left unfinished. Spectator feeds don't
+// get threads of their own; their queues are drained by a small pool shared by all rooms.
+public class MatchServer implements AutoCloseable {
+
+    private final ServerSocketChannel serverChannel;
+    private static final int FEED_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private final ExecutorService executor = newThreadPerTaskExecutor();
+    private final ExecutorService feedExecutor = Executors.newFixedThreadPool(FEED_THREADS, daemonThreads("spectator-feed"));
+    private final ConcurrentHashMap<Long, Room> rooms = new ConcurrentHashMap<>();
+    private final AtomicLong nextRoomId = new AtomicLong(1);
+    private final AtomicInteger connections = new AtomicInteger();
+    private final GameJournal journal;
+
+    public MatchServer(SocketAddress address) throws IOException {
+        this(address, null);
+    }
+
+    public MatchServer(SocketAddress address, GameJournal journal) throws IOException {
+        this.journal = journal;
+        if (address instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+            serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            serverChannel = ServerSocketChannel.open();
+        }
+        serverChannel.bind(address, 4096);
+    }
+
+    public SocketAddress getAddress() throws IOException {
+        return serverChannel.getLocalAddress();
+    }
+
+    public int getConnectionCount() {
+        return connections.get();
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    // Accepts connections on a background thread until close.
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "match-server-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    private void acceptLoop() {
+        while (serverChannel.isOpen()) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                connections.incrementAndGet();
+                executor.execute(new Connection(this, channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                System.err.println("Accept failed: " + e.getMessage());
+            }
+        }
+    }
+
+    Room createRoom(Connection creator) {
+        Room room = new Room(nextRoomId.getAndIncrement(), creator, new ChessMatch(), journal, feedExecutor);
+        rooms.put(room.getId(), room);
+        return room;
+    }
+
+    // Puts the unfinished games found by GameJournal.replay back in rooms of their own, with both seats free
+    // so the players can JOIN again. Each game goes on under a new game id and the old one is finished, so
+    // the next replay doesn't find it twice. Returns the new room ids in the order of the games.
+    public List<Long> resume(Map<Integer, ChessMatch> games) {
+        if (journal == null) throw new IllegalStateException("The server has no journal to resume games into");
+        List<Long> ids = new ArrayList<>();
+        games.forEach((gameId, match) -> {
+            Room room = new Room(nextRoomId.getAndIncrement(), null, match, journal, feedExecutor);
+            rooms.put(room.getId(), room);
+            journal.finish(gameId);
+            ids.add(room.getId());
+        });
+        return ids;
+    }
+
+    Room getRoom(long id) {
+        Room room = rooms.get(id);
+        if (room == null) throw new ChessException("There is no room " + id + ".");
+        return room;
+    }
+
+    void removeRoom(Room room) {
+        rooms.remove(room.getId(), room);
+    }
+
+    void disconnected() {
+        connections.decrementAndGet();
+    }
+
+    @Override
+    public void close() throws IOException {
+        SocketAddress address = serverChannel.getLocalAddress();
+        serverChannel.close();
+        executor.shutdownNow();
+        feedExecutor.shutdownNow();
+        if (address instanceof UnixDomainSocketAddress unix) Files.deleteIfExists(unix.getPath());
+    }
+
+    // Virtual threads when the runtime has them (Java 21+), otherwise a cached pool of platform threads,
+    // which costs a full thread stack per connection.
+    static ExecutorService newThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            System.err.println("Warning: virtual threads are not available on Java " + Runtime.version().feature()
+                    + ", falling back to one platform thread per task");
+            return Executors.newCachedThreadPool(daemonThreads("connection"));
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    static SocketAddress parseAddress(String address) {
+        if (address.startsWith("unix:")) return UnixDomainSocketAddress.of(Path.of(address.substring(5)));
+        int colon = address.lastIndexOf(':');
+        if (colon < 0) return new InetSocketAddress("127.0.0.1", Integer.parseInt(address));
+        return new InetSocketAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        SocketAddress address = parseAddress(args.length > 0 ? args[0] : "7777");
+        Path journalFile = args.length > 1 ? Path.of(args[1]) : null;
+        GameJournal journal = journalFile != null ? new GameJournal(journalFile) : null;
+        try (MatchServer server = new MatchServer(address, journal)) {
+            if (journal != null) {
+                List<Long> resumed = server.resume(GameJournal.replay(journalFile));
+                if (!resumed.isEmpty()) System.out.println("Resumed " + resumed.size() + " unfinished games in rooms " + resumed);
+            }
+            server.start();
+            System.out.println("Listening on " + server.getAddress());
+            while (true) {
+                Thread.sleep(10_000);
+                System.out.println(server.getConnectionCount() + " connections, " + server.getRoomCount() + " rooms");
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package application.server;
+
+import chess.ChessMatch;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.Color;
+import chess.exceptions.ChessException;
+import chess.journal.GameJournal;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+
+// One match and its two seats. Everything touching the match happens under the room's own lock, so rooms
+// never wait for each other; messages to the other player are sent after the lock is released.
+final class Room {
+
+    private static final List<String> PROMOTION_LETTERS = List.of("B", "N", "R", "Q");
+
+    private final long id;
+    private final ChessMatch match;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Connection white;
+    private Connection black;
+    private final SpectatorFeed feed;
+    private boolean closed;
+    private final GameJournal journal;
+    private final int gameId;
+
+    // creator takes the white seat; it is null for a match resumed from the journal, which starts with both
+    // seats free.
+    Room(long id, Connection creator, ChessMatch match, GameJournal journal, Executor feedExecutor) {
+        this.id = id;
+        this.white = creator;
+        this.match = match;
+        this.feed = new SpectatorFeed(feedExecutor);
+        this.journal = journal;
+        this.gameId = journal == null ? 0 : journal.attach(match);
+    }
+
+    long getId() {
+        return id;
+    }
+
+    // Returns the color given to the player, or null if both seats are taken.
+    Color join(Connection player) {
+        lock.lock();
+        try {
+            if (closed) return null;
+            if (white == null) {
+                white = player;
+                return Color.WHITE;
+            }
+            if (black == null) {
+                black = player;
+                return Color.BLACK;
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isFull() {
+        lock.lock();
+        try {
+            return white != null && black != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Plays the move for the player and returns its outcome, e.g. "e7e8q CAPTURE CHECK".
+    String move(Connection player, ChessPosition source, ChessPosition target, String promotion) {
+        lock.lock();
+        try {
+            if (white == null || black == null) throw new ChessException("Waiting for an opponent.");
+            if (match.isCheckMate() || match.isDraw()) throw new ChessException("The match is over.");
+            if (player != seat(match.getCurrentPlayer())) throw new ChessException("It is not your turn.");
+            // Checked before the move: once performChessMove returns the move stands and has to reach everyone.
+            if (promotion != null && !PROMOTION_LETTERS.contains(promotion.toUpperCase()))
+                throw new ChessException("Invalid type for promotion: " + promotion);
+            ChessPiece captured = match.performChessMove(source, target);
+            ChessPiece promoted = match.getPromoted();
+            try {
+                if (promoted != null && promotion != null) promoted = match.replacePromotedPiece(promotion);
+            } finally {
+                feed.publishMove(match);
+            }
+            return source.toString() + target + (promoted == null ? "" : promoted.toString().toLowerCase())
+                    + (captured == null ? "" : " CAPTURE") + status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Changes the piece the last move promoted to, as replacePromotedPiece does in the console game.
+    String promote(Connection player, String type) {
+        lock.lock();
+        try {
+            if (match.getPromoted() == null || player != seat(opponent(match.getCurrentPlayer())))
+                throw new ChessException("There is no piece of yours to promote.");
+            ChessPiece piece = match.replacePromotedPiece(type);
+            feed.publishPromotion(match);
+            return piece.getChessPosition() + " " + piece + status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    String board() {
+        lock.lock();
+        try {
+            return match.snapshot().encode() + status();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    SpectatorFeed.Subscriber watch(Connection spectator) {
+        lock.lock();
+        try {
+            if (closed) throw new ChessException("There is no room " + id + ".");
+            return feed.subscribe(spectator, match);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void unwatch(SpectatorFeed.Subscriber subscriber) {
+        lock.lock();
+        try {
+            feed.unsubscribe(subscriber);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Connection opponentOf(Connection player) {
+        lock.lock();
+        try {
+            return player == white ? black : player == black ? white : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Frees the player's seat; returns true when the room became empty, which also ends it for the spectators.
+    boolean leave(Connection player) {
+        lock.lock();
+        try {
+            if (player == white) white = null;
+            if (player == black) black = null;
+            if (white != null || black != null) return false;
+            closed = true;
+            feed.close();
+            if (journal != null) journal.finish(gameId);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private String status() {
+        if (match.isCheckMate()) return " CHECKMATE " + match.getWinner();
+        if (match.isDraw()) return " DRAW";
+        if (match.isCheck()) return " CHECK";
+        return "";
+    }
+
+    private Connection seat(Color color) {
+        return color == Color.WHITE ? white : black;
+    }
+
+    private static Color opponent(Color color) {
+        return color == Color.WHITE ? Color.BLACK : Color.WHITE;
+    }
+}
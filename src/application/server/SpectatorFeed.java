@@ -0,0 +1,145 @@
+package application.server;
+
+import chess.ChessMatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Fan-out of a room's moves to its spectators. Every accepted move is encoded once as a delta line,
+//   D <seq> <hex>   the move packed as in ChessMove plus the CHECK/CHECKMATE/DRAW bits below
+//   R <seq> <hex>   the last move again, with the promotion chosen by PROMOTE
+// and the same String is offered to each spectator's bounded queue. A spectator that falls so far behind
+// that its queue is full loses the backlog and gets a single snapshot line instead,
+//   S <seq> <PositionSnapshot.encode()>
+// which is also the first line a late joiner receives. Deltas always carry the sequence number after
+// the one of the line before, so a client can tell it is in sync. All methods run under the room lock.
+final class SpectatorFeed {
+
+    static final int MOVE_MASK = (1 << 24) - 1;
+    static final int CHECK = 1 << 24;
+    static final int CHECKMATE = 1 << 25;
+    static final int DRAW = 1 << 26;
+
+    static final int QUEUE_CAPACITY = 64;
+    static final String END = "END";
+
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final Executor executor;
+    private long sequence;
+    private long resyncs;
+
+    // The spectators' queues are drained by tasks on executor, a small pool shared by every room.
+    SpectatorFeed(Executor executor) {
+        this.executor = executor;
+    }
+
+    // The subscriber stays idle until start(), so the caller can reply before the first snapshot goes out.
+    Subscriber subscribe(Connection connection, ChessMatch match) {
+        Subscriber subscriber = new Subscriber(connection, executor);
+        subscriber.queue.offer(snapshotLine(match));
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) subscriber.close();
+    }
+
+    void publishMove(ChessMatch match) {
+        publish("D", match);
+    }
+
+    void publishPromotion(ChessMatch match) {
+        publish("R", match);
+    }
+
+    private void publish(String kind, ChessMatch match) {
+        sequence++;
+        int delta = match.getLastMove();
+        if (match.isCheck()) delta |= CHECK;
+        if (match.isCheckMate()) delta |= CHECKMATE;
+        if (match.isDraw()) delta |= DRAW;
+        String line = kind + " " + sequence + " " + Integer.toHexString(delta);
+        String snapshot = null;
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.queue.offer(line)) {
+                if (snapshot == null) snapshot = snapshotLine(match);
+                subscriber.queue.clear();
+                subscriber.queue.offer(snapshot);
+                resyncs++;
+            }
+            subscriber.schedule();
+        }
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    long getResyncs() {
+        return resyncs;
+    }
+
+    void close() {
+        for (Subscriber subscriber : subscribers) subscriber.close();
+        subscribers.clear();
+    }
+
+    private String snapshotLine(ChessMatch match) {
+        return "S " + sequence + " " + match.snapshot().encode();
+    }
+
+    // One spectator's queue. Whenever lines are waiting, a single drain task is queued on the shared
+    // executor; it writes at most a queue's worth of lines and then queues itself again if more came in,
+    // so spectators take turns and none holds a thread while it has nothing to send.
+    static final class Subscriber implements Runnable {
+
+        private final ArrayBlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        private final Connection connection;
+        private final Executor executor;
+        // Set while a drain task is queued or running; starts set so nothing is sent before start().
+        private final AtomicBoolean scheduled = new AtomicBoolean(true);
+
+        private Subscriber(Connection connection, Executor executor) {
+            this.connection = connection;
+            this.executor = executor;
+        }
+
+        void start() {
+            scheduled.set(false);
+            schedule();
+        }
+
+        private void schedule() {
+            if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) return;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // The server is shutting down and takes the connection with it.
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < QUEUE_CAPACITY; i++) {
+                String line = queue.poll();
+                if (line == null) break;
+                connection.push(line);
+                // Left scheduled, so the finished subscriber is never drained again.
+                if (line == END) return;
+            }
+            scheduled.set(false);
+            schedule();
+        }
+
+        private void close() {
+            queue.clear();
+            queue.offer(END);
+            schedule();
+        }
+    }
+}
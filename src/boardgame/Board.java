@@ -6,6 +6,12 @@ public class Board {
     private int rows, columns;
     private Piece[][] pieces;
 
+    // Mailbox indexed by row * columns + column; 0 is an empty square, anything else is Piece.getCode().
+    private final byte[] squares;
+    private final Position[] positions;
+    // Scratch for the boolean move adapters in Piece, shared by every piece on the board.
+    private int[] moveBuffer;
+
     public Board(int rows, int columns) {
         if (rows < 1 || columns < 1)
             throw new BoardException("Error creating board: there must be at least 1 row and 1 column.");
@@ -13,6 +19,20 @@ public class Board {
         this.rows = rows;
         this.columns = columns;
         pieces = new Piece[rows][columns];
+        squares = new byte[rows * columns];
+        positions = new Position[rows * columns];
+    }
+
+    // One shared Position per square, made the first time a piece lands there.
+    private Position position(int square) {
+        Position position = positions[square];
+        if (position == null) positions[square] = position = new Position(square / columns, square % columns);
+        return position;
+    }
+
+    int[] moveBuffer() {
+        if (moveBuffer == null) moveBuffer = new int[rows * columns * 4];
+        return moveBuffer;
     }
 
     public int getRows() {
@@ -32,14 +52,37 @@ public class Board {
         return piece(position.getRow(), position.getCol());
     }
 
+    public Piece piece(int square) {
+        return pieces[square / columns][square % columns];
+    }
+
+    public int square(Position position) {
+        return position.getRow() * columns + position.getCol();
+    }
+
+    public byte code(int row, int column) {
+        return squares[row * columns + column];
+    }
+
+    public byte code(int square) {
+        return squares[square];
+    }
+
     public void placePiece(Piece piece, Position position) {
         if (thereIsAPiece(position))
             throw new BoardException("There is already a piece on position " + position);
-        pieces[position.getRow()][position.getCol()] = piece;
-        piece.position = position;
+        placePiece(piece, square(position));
     }
 
-    private boolean positionExists(int row, int column) {
+    public void placePiece(Piece piece, int square) {
+        if (squares[square] != 0)
+            throw new BoardException("There is already a piece on position " + position(square));
+        pieces[square / columns][square % columns] = piece;
+        squares[square] = piece.getCode();
+        piece.position = position(square);
+    }
+
+    public boolean positionExists(int row, int column) {
         return row >= 0 && row < rows && column >= 0 && column < columns;
     }
 
@@ -48,15 +91,21 @@ public class Board {
     }
 
     public boolean thereIsAPiece(Position position) {
-        return piece(position) != null;
+        if (!positionExists(position)) throw new BoardException("Position not on board: (" + position + ")");
+        return code(position.getRow(), position.getCol()) != 0;
     }
 
     public Piece removePiece(Position position){
         if (!positionExists(position)) throw new BoardException("Position " +position+" not exists.");
-        if (piece(position) == null) return null;
-        Piece aux = piece(position);
+        return removePiece(square(position));
+    }
+
+    public Piece removePiece(int square) {
+        Piece aux = pieces[square / columns][square % columns];
+        if (aux == null) return null;
         aux.position = null;
-        pieces[position.getRow()][position.getCol()] = null;
+        pieces[square / columns][square % columns] = null;
+        squares[square] = 0;
         return aux;
     }
 }
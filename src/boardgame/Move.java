@@ -0,0 +1,29 @@
+package boardgame;
+
+public final class Move {
+
+    // A move is packed in an int: source square in bits 0-7, target square in bits 8-15 and
+    // game specific flags from bit 16 up. Squares are indexed as row * columns + column.
+    private Move() {
+    }
+
+    public static int of(int from, int to) {
+        return from | to << 8;
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | to << 8 | flags << 16;
+    }
+
+    public static int from(int move) {
+        return move & 0xFF;
+    }
+
+    public static int to(int move) {
+        return (move >>> 8) & 0xFF;
+    }
+
+    public static int flags(int move) {
+        return move >>> 16;
+    }
+}
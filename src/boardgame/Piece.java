@@ -11,18 +11,33 @@ public abstract class Piece {
         return board;
     }
 
-    public abstract boolean[][] possibleMoves();
-    public boolean possibleMove(Position position){
-        return possibleMoves()[position.getRow()][position.getCol()];
+    public abstract byte getCode();
+
+    // Writes the packed moves (see Move) into moves starting at offset and returns how many were written.
+    public abstract int generateMoves(int[] moves, int offset);
+
+    public boolean[][] possibleMoves() {
+        boolean[][] mat = new boolean[board.getRows()][board.getColumns()];
+        int[] moves = board.moveBuffer();
+        int count = generateMoves(moves, 0);
+        for (int i = 0; i < count; i++) {
+            int to = Move.to(moves[i]);
+            mat[to / board.getColumns()][to % board.getColumns()] = true;
+        }
+        return mat;
     }
 
-    public boolean isThereAnyPossibleMove(){
-        boolean[][] mat = possibleMoves();
-        for (boolean[] booleans : mat) {
-            for (boolean aBoolean : booleans) {
-                if (aBoolean) return true;
-            }
+    public boolean possibleMove(Position position){
+        int target = position.getRow() * board.getColumns() + position.getCol();
+        int[] moves = board.moveBuffer();
+        int count = generateMoves(moves, 0);
+        for (int i = 0; i < count; i++) {
+            if (Move.to(moves[i]) == target) return true;
         }
         return false;
     }
+
+    public boolean isThereAnyPossibleMove(){
+        return generateMoves(board.moveBuffer(), 0) > 0;
+    }
 }
@@ -1,10 +1,14 @@
 package chess;
 
 import boardgame.Board;
+import boardgame.Move;
 import boardgame.Piece;
 import boardgame.Position;
+import chess.book.OpeningBook;
 import chess.exceptions.ChessException;
+import chess.metrics.Metrics;
 import chess.pieces.*;
+import chess.tablebase.Tablebase;
 
 import java.security.InvalidParameterException;
 import java.util.ArrayList;
@@ -13,6 +17,9 @@ import java.util.List;
 
 public class ChessMatch {
 
+    // Big enough for the pseudo-legal moves of any reachable position.
+    public static final int MAX_MOVES = 512;
+
     private int turn;
     private Color currentPlayer;
 
@@ -20,6 +27,11 @@ public class ChessMatch {
 
     private boolean check;
     private boolean checkMate;
+    private boolean stalemate;
+
+    private static final int CHECK = 1;
+    private static final int CHECKMATE = 2;
+    private static final int STALEMATE = 4;
     private ChessPiece enPassantVunerable;
 
     private ChessPiece promoted;
@@ -29,7 +41,73 @@ public class ChessMatch {
     }
 
     private final List<Piece> capturedPieces = new ArrayList<>();
-    private final List<Piece> piecesOnTheBoard = new ArrayList<>();
+    private final PieceRegistry piecesOnTheBoard = new PieceRegistry();
+    private final int[] kingSquares = {-1, -1};
+
+    public static final int WHITE_KING_SIDE = 1;
+    public static final int WHITE_QUEEN_SIDE = 2;
+    public static final int BLACK_KING_SIDE = 4;
+    public static final int BLACK_QUEEN_SIDE = 8;
+
+    // Castling rights kept after a move touches the square (king or rook leaving, rook captured).
+    private static final int[] CASTLING_MASK = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_MASK, 15);
+        CASTLING_MASK[60] = ~(WHITE_KING_SIDE | WHITE_QUEEN_SIDE) & 15;
+        CASTLING_MASK[63] = ~WHITE_KING_SIDE & 15;
+        CASTLING_MASK[56] = ~WHITE_QUEEN_SIDE & 15;
+        CASTLING_MASK[4] = ~(BLACK_KING_SIDE | BLACK_QUEEN_SIDE) & 15;
+        CASTLING_MASK[7] = ~BLACK_KING_SIDE & 15;
+        CASTLING_MASK[0] = ~BLACK_QUEEN_SIDE & 15;
+    }
+
+    private int castlingRights;
+    private int halfMoveClock;
+    private long key;
+    private final RepetitionTable repetitions = new RepetitionTable();
+    private PositionSnapshot initialPosition;
+    private MoveListener moveListener;
+
+    // One entry per move made with makeMove, popped by unmakeMove.
+    private int ply;
+    private int[] moveStack = new int[64];
+    private ChessPiece[] capturedStack = new ChessPiece[64];
+    private ChessPiece[] enPassantStack = new ChessPiece[64];
+    private ChessPiece[] promotedPawnStack = new ChessPiece[64];
+    private long[] keyStack = new long[64];
+    // Castling rights in the low 4 bits, the halfmove clock above them.
+    private int[] stateStack = new int[64];
+    // CHECK/CHECKMATE/STALEMATE of the position after each ply, index 0 being the initial position, so
+    // undoMove and redoMove restore them without generating moves.
+    private byte[] statusStack = new byte[65];
+    // Moves taken back by undoMove, the next one to redo on top; performChessMove and replacePromotedPiece
+    // drop them, while makeMove/unmakeMove pairs (a search, say) leave them alone.
+    private int[] redoStack = new int[64];
+    private int redoCount;
+
+    private final int[] mateMoves = new int[MAX_MOVES];
+
+    // Number of pieces of each color (index 0 white, 1 black) attacking every square, kept up to date by take/put.
+    private final int[][] attacks = new int[2][64];
+
+    // The square codes again, four bits each, so snapshot() is a copy of four longs.
+    private final long[] packedSquares = new long[4];
+
+    // Sums of PieceSquareTables over the pieces on the board, for white, kept up to date by take/put like the key.
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+
+    // Set by computeLegality for the side to move, as bitboards (bit n is square n): where pieces other than
+    // the king may go (everywhere out of check, onto the checker or between it and the king in single check,
+    // nowhere in double check), the squares behind the king on a checking slider's line, and the pinned
+    // pieces with the line from the king to their pinner that each has to stay on.
+    private int checkers;
+    private long evasionTargets;
+    private long kingXrays;
+    private long pinnedPieces;
+    private final long[] pinLines = new long[64];
 
     public ChessPiece getEnPassantVunerable() {
         return enPassantVunerable;
@@ -43,11 +121,74 @@ public class ChessMatch {
         return check;
     }
 
+    // The side to move has no legal move and is not in check; like isCheckMate, set by performChessMove.
+    public boolean isStalemate() {
+        return stalemate;
+    }
+
+    // Whether the side to move is in check right now; isCheck only describes the last performChessMove.
+    // This is the entry point the testCheck histogram times, the internal testCheck calls are left out.
+    public boolean isInCheck() {
+        if (!Metrics.ENABLED) return testCheck(currentPlayer);
+        long start = System.nanoTime();
+        boolean check = testCheck(currentPlayer);
+        Metrics.TEST_CHECK.recordSince(start);
+        return check;
+    }
+
     public ChessMatch() {
-        board = new Board(8, 8);
-        turn = 1;
-        currentPlayer = Color.WHITE;
+        this(Color.WHITE, 1);
         initialSetup();
+        castlingRights = WHITE_KING_SIDE | WHITE_QUEEN_SIDE | BLACK_KING_SIDE | BLACK_QUEEN_SIDE;
+        resetHistory();
+    }
+
+    ChessMatch(Color currentPlayer, int turn) {
+        board = new Board(8, 8);
+        this.turn = turn;
+        this.currentPlayer = currentPlayer;
+    }
+
+    public static ChessMatch fromFen(String fen) {
+        return Fen.load(fen);
+    }
+
+    // The current position in FEN, with the halfmove clock and the fullmove number.
+    public String toFen() {
+        return Fen.save(snapshot());
+    }
+
+    // Independent match in the same position with its own board and pieces, so another thread can analyse it.
+    // Repetition counts are kept; the moves made so far and the captured pieces are not.
+    public ChessMatch copy() {
+        ChessMatch copy = fromSnapshot(snapshot());
+        copy.repetitions.copyFrom(repetitions);
+        for (int square = 0; square < Squares.COUNT; square++) {
+            if (board.code(square) != PieceCode.EMPTY)
+                ((ChessPiece) copy.board.piece(square)).setMoveCount(((ChessPiece) board.piece(square)).getMoveCount());
+        }
+        return copy;
+    }
+
+    // Copies four longs; the snapshot shares nothing with this match.
+    public PositionSnapshot snapshot() {
+        return new PositionSnapshot(packedSquares.clone(), currentPlayer, turn, castlingRights,
+                enPassantVunerable == null ? -1 : enPassantVunerable.square(), halfMoveClock, key);
+    }
+
+    // New match whose game starts at the snapshot position.
+    public static ChessMatch fromSnapshot(PositionSnapshot snapshot) {
+        ChessMatch match = new ChessMatch(snapshot.getCurrentPlayer(), snapshot.getTurn());
+        byte[] codes = new byte[Squares.COUNT];
+        for (int square = 0; square < Squares.COUNT; square++) codes[square] = (byte) snapshot.getPieceCode(square);
+        match.placePieces(codes);
+        if (snapshot.getEnPassantSquare() >= 0)
+            match.enPassantVunerable = (ChessPiece) match.board.piece(snapshot.getEnPassantSquare());
+        match.castlingRights = snapshot.getCastlingRights();
+        match.halfMoveClock = snapshot.getHalfMoveClock();
+        match.resetHistory();
+        match.updateStatus();
+        return match;
     }
 
     public int getTurn() {
@@ -58,62 +199,191 @@ public class ChessMatch {
         return currentPlayer;
     }
 
+    public Color getWinner() {
+        return checkMate ? opponent(currentPlayer) : null;
+    }
+
     public List<ChessPiece> getCapturedPieces() {
         return capturedPieces.stream().map(piece -> (ChessPiece) piece).toList();
     }
 
     private void nextTurn() {
         turn++;
-        currentPlayer = currentPlayer == Color.WHITE ? Color.BLACK : Color.WHITE;
+        currentPlayer = opponent(currentPlayer);
+    }
+
+    private void previousTurn() {
+        turn--;
+        currentPlayer = opponent(currentPlayer);
     }
 
     private Color opponent(Color color) {
         return color == Color.WHITE ? Color.BLACK : Color.WHITE;
     }
 
-    private ChessPiece king(Color color) {
-        return piecesOnTheBoard.stream()
-                .filter(piece -> ((ChessPiece) piece).getColor() == color && piece instanceof King)
-                .map(piece -> (ChessPiece) piece)
-                .findFirst()
-                .orElseThrow(() -> new IllegalStateException("There is no " + color + " king on the board."));
-
-
-    }
-
-    private boolean testCheck(Color color) {
-        Position kingPosition = king(color).getChessPosition().toPosition();
-        return piecesOnTheBoard.stream()
-                .filter(piece -> ((ChessPiece) piece).getColor() == opponent(color))
-                .anyMatch(piece -> {
-                    boolean[][] mat = piece.possibleMoves();
-                    return mat[kingPosition.getRow()][kingPosition.getCol()];
-                });
-    }
-
-    private boolean testCheckMate(Color color) {
-        if (!testCheck(color)) return false;
-        return piecesOnTheBoard.stream()
-                .filter(piece -> ((ChessPiece) piece).getColor() == color)
-                .map(piece -> (ChessPiece) piece)
-                .anyMatch(piece -> {
-                    boolean[][] mat = piece.possibleMoves();
-                    for (int i = 0; i < board.getRows(); i++) {
-                        for (int j = 0; j < board.getColumns(); j++) {
-                            if ( mat[i][j] ) {
-                                Position source = piece.getChessPosition().toPosition();
-                                Position target = new Position(i, j);
-                                Piece capturedPiece = makeMove(source, target);
-                                boolean _testCheck = testCheck(color);
-                                undoMove(source, target, capturedPiece);
-                                if (!_testCheck) return false;
-                            }
-                        }
+    private int kingSquare(Color color) {
+        int square = kingSquares[side(color)];
+        if (square < 0) throw new IllegalStateException("There is no " + color + " king on the board.");
+        return square;
+    }
+
+    boolean testCheck(Color color) {
+        return isAttacked(kingSquare(color), opponent(color));
+    }
+
+    boolean testCheckMate() {
+        return testCheck(currentPlayer) && generateLegalMoves(mateMoves, 0) == 0;
+    }
+
+    // Check, mate and stalemate from a single generation: mate and stalemate are no legal moves with and
+    // without check. Every move's mate test happens here, so this is what the testCheckMate histogram times.
+    void updateStatus() {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        check = testCheck(currentPlayer);
+        boolean noMoves = generateLegalMoves(mateMoves, 0) == 0;
+        checkMate = check && noMoves;
+        stalemate = !check && noMoves;
+        statusStack[ply] = (byte) ((check ? CHECK : 0) | (checkMate ? CHECKMATE : 0) | (stalemate ? STALEMATE : 0));
+        if (Metrics.ENABLED) Metrics.TEST_CHECK_MATE.recordSince(start);
+    }
+
+    private void restoreStatus() {
+        int status = statusStack[ply];
+        check = (status & CHECK) != 0;
+        checkMate = (status & CHECKMATE) != 0;
+        stalemate = (status & STALEMATE) != 0;
+        int last = getLastMove();
+        promoted = last != 0 && ChessMove.isPromotion(last) ? (ChessPiece) board.piece(Move.to(last)) : null;
+    }
+
+    public boolean canUndo() {
+        return ply > 0;
+    }
+
+    public boolean canRedo() {
+        return redoCount > 0;
+    }
+
+    // Takes back the last move made with performChessMove: the position, turn, castling rights, en passant
+    // pawn, clocks, key, captured pieces, check flags and the piece replacePromotedPiece would act on are all
+    // as they were before it, read back from the undo stacks without replaying the game.
+    public void undoMove() {
+        if (ply == 0) throw new IllegalStateException("There is no move to take back.");
+        ChessPiece captured = capturedStack[ply - 1];
+        if (redoCount == redoStack.length) redoStack = Arrays.copyOf(redoStack, redoCount * 2);
+        redoStack[redoCount++] = moveStack[ply - 1];
+        unmakeMove();
+        if (captured != null) capturedPieces.remove(capturedPieces.size() - 1);
+        restoreStatus();
+        if (moveListener != null) moveListener.moveUndone(this);
+    }
+
+    // Plays again the move the last undoMove took back, promotion choice included.
+    public void redoMove() {
+        if (redoCount == 0) throw new IllegalStateException("There is no move to redo.");
+        int move = redoStack[--redoCount];
+        makeMove(move);
+        if (capturedStack[ply - 1] != null) capturedPieces.add(capturedStack[ply - 1]);
+        restoreStatus();
+        if (moveListener != null) moveListener.movePerformed(this, move);
+    }
+
+    public boolean isSquareAttacked(ChessPosition position, Color by) {
+        return isAttacked(board.square(position.toPosition()), by);
+    }
+
+    public int countAttackers(ChessPosition position, Color by) {
+        return attacks[side(by)][board.square(position.toPosition())];
+    }
+
+    private boolean isAttacked(int square, Color by) {
+        return attacks[side(by)][square] > 0;
+    }
+
+    private static int side(Color color) {
+        return color == Color.WHITE ? 0 : 1;
+    }
+
+    // Every board change goes through take/put so the attack maps follow it: besides the piece itself,
+    // the sliders whose rays reach the square now see past it (take) or stop on it (put).
+    private ChessPiece take(int square) {
+        int code = board.code(square);
+        if (code == PieceCode.EMPTY) return null;
+        updateAttacks(square, -1);
+        ChessPiece piece = (ChessPiece) board.removePiece(square);
+        updateSliderRays(square, 1);
+        key ^= Zobrist.PIECES[code][square];
+        middlegameScore -= PieceSquareTables.MIDDLEGAME[code][square];
+        endgameScore -= PieceSquareTables.ENDGAME[code][square];
+        phase -= PieceSquareTables.PHASE[code];
+        packedSquares[square >>> 4] &= ~(0xFL << ((square & 15) << 2));
+        piecesOnTheBoard.remove(piece);
+        if (PieceCode.type(code) == PieceCode.KING) kingSquares[PieceRegistry.side(code)] = -1;
+        return piece;
+    }
+
+    private void put(ChessPiece piece, int square) {
+        updateSliderRays(square, -1);
+        board.placePiece(piece, square);
+        updateAttacks(square, 1);
+        int code = piece.getCode();
+        key ^= Zobrist.PIECES[code][square];
+        middlegameScore += PieceSquareTables.MIDDLEGAME[code][square];
+        endgameScore += PieceSquareTables.ENDGAME[code][square];
+        phase += PieceSquareTables.PHASE[code];
+        packedSquares[square >>> 4] |= (long) code << ((square & 15) << 2);
+        piecesOnTheBoard.add(piece);
+        if (piece.getType() == PieceCode.KING) kingSquares[PieceRegistry.side(code)] = square;
+    }
+
+    private void updateSliderRays(int square, int delta) {
+        int[][] rays = Squares.RAYS[square];
+        for (int d = 0; d < rays.length; d++) {
+            for (int target : rays[d]) {
+                int code = board.code(target);
+                if (code == PieceCode.EMPTY) continue;
+                int type = PieceCode.type(code);
+                if (type == PieceCode.QUEEN || type == (d < Squares.FIRST_DIAGONAL ? PieceCode.ROOK : PieceCode.BISHOP)) {
+                    int[] map = attacks[(code & PieceCode.BLACK) == 0 ? 0 : 1];
+                    for (int beyond : rays[Squares.OPPOSITE[d]]) {
+                        map[beyond] += delta;
+                        if (board.code(beyond) != PieceCode.EMPTY) break;
                     }
-                    return true;
-                });
+                }
+                break;
+            }
+        }
+    }
+
+    private void updateAttacks(int square, int delta) {
+        int code = board.code(square);
+        int side = (code & PieceCode.BLACK) == 0 ? 0 : 1;
+        int[] map = attacks[side];
+        switch (PieceCode.type(code)) {
+            case PieceCode.PAWN -> addAttacks(map, Squares.PAWN_ATTACKS[side][square], delta);
+            case PieceCode.KNIGHT -> addAttacks(map, Squares.KNIGHT_TARGETS[square], delta);
+            case PieceCode.KING -> addAttacks(map, Squares.KING_TARGETS[square], delta);
+            case PieceCode.BISHOP -> addRayAttacks(map, square, Squares.FIRST_DIAGONAL, 8, delta);
+            case PieceCode.ROOK -> addRayAttacks(map, square, 0, Squares.FIRST_DIAGONAL, delta);
+            case PieceCode.QUEEN -> addRayAttacks(map, square, 0, 8, delta);
+        }
+    }
+
+    private static void addAttacks(int[] map, int[] targets, int delta) {
+        for (int target : targets) map[target] += delta;
+    }
+
+    private void addRayAttacks(int[] map, int square, int from, int to, int delta) {
+        int[][] rays = Squares.RAYS[square];
+        for (int d = from; d < to; d++) {
+            for (int target : rays[d]) {
+                map[target] += delta;
+                if (board.code(target) != PieceCode.EMPTY) break;
+            }
+        }
     }
 
+
     public ChessPiece[][] getPieces() {
         ChessPiece[][] mat = new ChessPiece[board.getRows()][board.getColumns()];
         for (int i = 0; i < board.getRows(); i++) {
@@ -124,9 +394,149 @@ public class ChessMatch {
         return mat;
     }
 
+    // PieceCode of the piece on a square indexed as row * 8 + column (row 0 is rank 8), EMPTY if there is none.
+    public int getPieceCode(int square) {
+        return board.code(square);
+    }
+
     private void placeNewPiece(char column, int row, ChessPiece piece) {
-        board.placePiece(piece, new ChessPosition(column, row).toPosition());
-        piecesOnTheBoard.add(piece);
+        placeNewPiece(board.square(new ChessPosition(column, row).toPosition()), piece);
+    }
+
+    void placeNewPiece(int square, ChessPiece piece) {
+        put(piece, square);
+    }
+
+    // Sets up a whole position on an empty board, codes[square] being a PieceCode or EMPTY. The attack maps
+    // are built once everything is in place instead of following the slider rays piece by piece as put does;
+    // the key is left to resetHistory.
+    void placePieces(byte[] codes) {
+        for (int square = 0; square < Squares.COUNT; square++) {
+            int code = codes[square];
+            if (code == PieceCode.EMPTY) continue;
+            ChessPiece piece = newPiece(PieceCode.type(code), PieceCode.color(code));
+            board.placePiece(piece, square);
+            packedSquares[square >>> 4] |= (long) code << ((square & 15) << 2);
+            middlegameScore += PieceSquareTables.MIDDLEGAME[code][square];
+            endgameScore += PieceSquareTables.ENDGAME[code][square];
+            phase += PieceSquareTables.PHASE[code];
+            piecesOnTheBoard.add(piece);
+            if (PieceCode.type(code) == PieceCode.KING) kingSquares[PieceRegistry.side(code)] = square;
+        }
+        for (int square = 0; square < Squares.COUNT; square++) {
+            if (board.code(square) != PieceCode.EMPTY) updateAttacks(square, 1);
+        }
+    }
+
+    Board getBoard() {
+        return board;
+    }
+
+    void setEnPassantVunerable(ChessPiece enPassantVunerable) {
+        this.enPassantVunerable = enPassantVunerable;
+    }
+
+    void setCastlingRights(int castlingRights) {
+        this.castlingRights = castlingRights;
+    }
+
+    void setHalfMoveClock(int halfMoveClock) {
+        this.halfMoveClock = halfMoveClock;
+    }
+
+    // Recomputes the key from scratch and makes the current position the first of the game record.
+    void resetHistory() {
+        key = computeKey();
+        repetitions.clear();
+        repetitions.add(key);
+        initialPosition = snapshot();
+    }
+
+    // Position the game record starts from: the initial setup, or the position the match was loaded from.
+    public PositionSnapshot getInitialPosition() {
+        return initialPosition;
+    }
+
+    // Moves made since the initial position, packed as in ChessMove, with promotion choices applied.
+    public int[] getMoveHistory() {
+        return Arrays.copyOf(moveStack, ply);
+    }
+
+    // Told about every performChessMove and replacePromotedPiece, but not about makeMove/unmakeMove calls
+    // made by analysis.
+    public void setMoveListener(MoveListener moveListener) {
+        this.moveListener = moveListener;
+    }
+
+    long computeKey() {
+        return Zobrist.key(packedSquares, currentPlayer, castlingRights,
+                enPassantVunerable == null ? -1 : enPassantVunerable.square());
+    }
+
+    // The en passant file only counts when a pawn of the side to move could actually take.
+    private long enPassantKey() {
+        if (enPassantVunerable == null) return 0;
+        int square = enPassantVunerable.square();
+        int column = square % 8;
+        byte capturer = PieceCode.of(PieceCode.PAWN, currentPlayer);
+        if (column > 0 && board.code(square - 1) == capturer || column < 7 && board.code(square + 1) == capturer)
+            return Zobrist.EN_PASSANT_FILE[column];
+        return 0;
+    }
+
+    // The last move made, packed as in ChessMove, or 0 at the start of the game record.
+    public int getLastMove() {
+        return ply == 0 ? 0 : moveStack[ply - 1];
+    }
+
+    public long getPositionKey() {
+        return key;
+    }
+
+    // Material plus piece-square score for white with middlegame and with endgame tables, and the game phase
+    // (see PieceSquareTables); chess.engine.Evaluation blends them.
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    public boolean hasCastlingRight(Color color, boolean kingSide) {
+        int right = color == Color.WHITE
+                ? (kingSide ? WHITE_KING_SIDE : WHITE_QUEEN_SIDE)
+                : (kingSide ? BLACK_KING_SIDE : BLACK_QUEEN_SIDE);
+        return (castlingRights & right) != 0;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    // How many times the current position has occurred, this occurrence included.
+    public int getRepetitionCount() {
+        return repetitions.count(key);
+    }
+
+    public boolean isThreefoldRepetition() {
+        return getRepetitionCount() >= 3;
+    }
+
+    public boolean isFiftyMoveRule() {
+        return halfMoveClock >= 100;
+    }
+
+    public boolean isDraw() {
+        return stalemate || isThreefoldRepetition() || isFiftyMoveRule();
     }
 
     public boolean[][] possibleMoves(ChessPosition sourcePosition) {
@@ -136,53 +546,79 @@ public class ChessMatch {
     }
 
     public ChessPiece performChessMove(ChessPosition sourcePosition, ChessPosition targetPosition) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
         Position source = sourcePosition.toPosition();
         Position target = targetPosition.toPosition();
-        validadeSourcePosition(source);
-        validateTargetPosition(source, target);
-        Piece capturedPiece = makeMove(source, target);
+        // The source's moves are generated once, for the checks and for the lookup alike.
+        int count = validadeSourcePosition(source);
+        ChessPiece captured = perform(findMove(count, board.square(target)));
+        if (Metrics.ENABLED) Metrics.PERFORM_CHESS_MOVE.recordSince(start);
+        return captured;
+    }
 
-        if (testCheck(currentPlayer)) {
-            undoMove(source, target, capturedPiece);
-            throw new ChessException("You can't put yourself in check.");
+    // Same as above for a move packed as in ChessMove, e.g. read back from a journal or a game file.
+    public ChessPiece performChessMove(int move) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        int from = Move.from(move);
+        int code = board.code(from);
+        if (code == PieceCode.EMPTY || PieceCode.color(code) != currentPlayer)
+            throw new ChessException("There is no piece of yours on " + ChessMove.squareName(from) + ".");
+        int count = board.piece(from).generateMoves(mateMoves, 0);
+        for (int i = 0; i < count; i++) {
+            if (mateMoves[i] != move) continue;
+            ChessPiece captured = perform(move);
+            if (Metrics.ENABLED) Metrics.PERFORM_CHESS_MOVE.recordSince(start);
+            return captured;
         }
+        throw new ChessException("The chosen piece can't make the move " + ChessMove.toString(move) + ".");
+    }
 
-        ChessPiece movedPiece = (ChessPiece) board.piece(target);
-
-        promoted = null;
-
-        if (movedPiece instanceof Pawn){
-            if (movedPiece.getColor() == Color.WHITE && target.getRow() == 0 || movedPiece.getColor() == Color.BLACK && target.getRow() == 7){
-                promoted = (ChessPiece) board.piece(target);
-                promoted = replacePromotedPiece("Q");
-            }
+    private ChessPiece perform(int move) {
+        computeLegality();
+        if (!isLegal(move)) {
+            throw new ChessException(ChessMove.isCastling(move)
+                    ? "You can't castle out of or through check."
+                    : "You can't put yourself in check.");
         }
+        makeMove(move);
+        redoCount = 0;
 
-        check = testCheck(opponent(currentPlayer));
+        ChessPiece capturedPiece = capturedStack[ply - 1];
+        if (capturedPiece != null) capturedPieces.add(capturedPiece);
 
-        if (testCheckMate(opponent(currentPlayer)))
-            checkMate = true;
-        else
-            nextTurn();
+        promoted = ChessMove.isPromotion(move) ? (ChessPiece) board.piece(Move.to(move)) : null;
 
-        if (movedPiece instanceof Pawn && target.getRow() == source.getRow() - 2 ||  (target.getRow() == source.getRow() + 2))
-            enPassantVunerable = movedPiece;
-        else
-            enPassantVunerable = null;
+        updateStatus();
 
-        return (ChessPiece) capturedPiece;
+        if (moveListener != null) moveListener.movePerformed(this, move);
+        return capturedPiece;
+    }
+
+    // Pawns reaching the last rank are promoted to a queen until replacePromotedPiece says otherwise.
+    private int findMove(int count, int target) {
+        for (int i = 0; i < count; i++) {
+            int move = mateMoves[i];
+            if (Move.to(move) != target) continue;
+            if (!ChessMove.isPromotion(move) || ChessMove.promotionType(move) == PieceCode.QUEEN) return move;
+        }
+        throw new ChessException("The chosen piece can't move to target position.");
     }
 
     public ChessPiece replacePromotedPiece(String type) {
         if (promoted == null) throw new IllegalStateException("There is no piece to be promoted");
         List<String> allowPieces = Arrays.asList("B", "N", "R", "Q");
         if (allowPieces.stream().noneMatch(s -> s.equals(type.toUpperCase()))) throw new InvalidParameterException("Invalid type for promotion");
-        Position pos = promoted.getChessPosition().toPosition();
-        Piece p = board.removePiece(pos);
-        piecesOnTheBoard.remove(p);
+        int square = board.square(promoted.getChessPosition().toPosition());
+        repetitions.remove(key);
+        take(square);
         ChessPiece newPiece =  newPiece(type, promoted.getColor());
-        board.placePiece(newPiece, pos);
-        piecesOnTheBoard.add(newPiece);
+        put(newPiece, square);
+        repetitions.add(key);
+        moveStack[ply - 1] = ChessMove.withPromotion(moveStack[ply - 1], newPiece.getType());
+        promoted = newPiece;
+        redoCount = 0;
+        updateStatus();
+        if (moveListener != null) moveListener.promotionReplaced(this, moveStack[ply - 1]);
         return newPiece;
     }
 
@@ -196,94 +632,285 @@ public class ChessMatch {
         };
     }
 
-    private Piece makeMove(Position source, Position target) {
-        ChessPiece p = (ChessPiece) board.removePiece(source);
-        p.increaseMoveCount();
-        Piece capturedPiece = board.removePiece(target);
-        board.placePiece(p, target);
+    private ChessPiece newPiece(int type, Color color) {
+        return switch (type) {
+            case PieceCode.PAWN -> new Pawn(board, color, this);
+            case PieceCode.KING -> new King(board, color, this);
+            case PieceCode.BISHOP -> new Bishop(board, color);
+            case PieceCode.KNIGHT -> new Knight(board, color);
+            case PieceCode.ROOK -> new Rook(board, color);
+            case PieceCode.QUEEN -> new Queen(board, color);
+            default -> throw new IllegalStateException("Invalid type for promotion: " + type);
+        };
+    }
 
+    // Writes the legal moves of the side to move into moves starting at offset and returns how many were written.
+    public int generateLegalMoves(int[] moves, int offset) {
+        return generateLegalMoves(moves, offset, false);
+    }
 
+    // Only the legal captures and promotions, the moves a quiescence search looks at.
+    public int generateTacticalMoves(int[] moves, int offset) {
+        return generateLegalMoves(moves, offset, true);
+    }
 
-        if (p instanceof King && target.getCol() == source.getCol() + 2) {
-            Position sourceRook = new Position(source.getRow(), source.getCol()+3);
-            Position targetRook = new Position(source.getRow(), source.getCol()+1);
-            ChessPiece rook = (ChessPiece) board.removePiece(sourceRook);
-            board.placePiece(rook, targetRook);
+    // The legal moves of the side to move's pieces of one type that land on target, which is all a
+    // notation like SAN needs to resolve a move; only those few candidates are tried for legality.
+    public int generateLegalMovesTo(int type, int target, int[] moves, int offset) {
+        int side = side(currentPlayer);
+        int count = offset;
+        for (int i = 0; i < piecesOnTheBoard.count(side, type); i++) {
+            count += piecesOnTheBoard.get(side, type, i).generateMoves(moves, count);
+        }
+        // En passant is still tried with makeMove, which reorders the registry, so legality comes after
+        // everything is generated.
+        computeLegality();
+        int n = offset;
+        for (int i = offset; i < count; i++) {
+            int move = moves[i];
+            if (Move.to(move) == target && isLegal(move)) moves[n++] = move;
         }
+        return n - offset;
+    }
+
+    // Legal book moves of the current position, most played first, written at offset; returns how many. A
+    // book entry can only be a move the piece on its square can make here, so a key shared with some other
+    // position yields nothing.
+    public int getBookMoves(OpeningBook book, int[] moves, int offset) {
+        int count = 0;
+        for (int i = book.find(key); i >= 0 && i < book.size() && book.key(i) == key; i++) {
+            int move = book.move(i);
+            if (isLegalMove(move)) moves[offset + count++] = move;
+        }
+        return count;
+    }
 
-        if (p instanceof King && target.getCol() == source.getCol() - 2) {
-            Position sourceRook = new Position(source.getRow(), source.getCol()+4);
-            Position targetRook = new Position(source.getRow(), source.getCol()+1);
-            ChessPiece rook = (ChessPiece) board.removePiece(sourceRook);
-            board.placePiece(rook, targetRook);
+    // The most played legal book move, 0 when the position is out of the book.
+    public int getBookMove(OpeningBook book) {
+        for (int i = book.find(key); i >= 0 && i < book.size() && book.key(i) == key; i++) {
+            if (isLegalMove(book.move(i))) return book.move(i);
         }
+        return 0;
+    }
 
-        if (p instanceof Pawn) {
-            if (source.getCol() != target.getCol() && capturedPiece == null){
-                int row = target.getRow();
-                row += p.getColor() == Color.WHITE ? 1 : - 1;
-                Position pawnPosition = new Position(row, target.getCol());
-                capturedPiece = board.removePiece(pawnPosition);
+    private boolean isLegalMove(int move) {
+        int from = Move.from(move);
+        int code = board.code(from);
+        if (code == PieceCode.EMPTY || PieceCode.color(code) != currentPlayer) return false;
+        int count = board.piece(from).generateMoves(mateMoves, 0);
+        for (int i = 0; i < count; i++) {
+            if (mateMoves[i] == move) {
+                computeLegality();
+                return isLegal(move);
             }
         }
+        return false;
+    }
 
-        if (capturedPiece != null) {
-            piecesOnTheBoard.remove(capturedPiece);
-            capturedPieces.add(capturedPiece);
+    // Exact score of the position from the tablebase, as Tablebase.probe gives it, or Tablebase.NOT_FOUND.
+    public int probeTablebase(Tablebase tablebase) {
+        return tablebase.probe(this);
+    }
+
+    private int generateLegalMoves(int[] moves, int offset, boolean tacticalOnly) {
+        int side = side(currentPlayer);
+        int count = offset;
+        for (int type = PieceCode.PAWN; type <= PieceCode.KING; type++) {
+            for (int i = 0; i < piecesOnTheBoard.count(side, type); i++) {
+                count += piecesOnTheBoard.get(side, type, i).generateMoves(moves, count);
+            }
+        }
+        computeLegality();
+        int n = offset;
+        for (int i = offset; i < count; i++) {
+            int move = moves[i];
+            if (tacticalOnly && !ChessMove.isCapture(move) && !ChessMove.isPromotion(move)) continue;
+            if (isLegal(move)) moves[n++] = move;
         }
+        return n - offset;
+    }
 
-        return capturedPiece;
+    // Finds the checkers, pins and king x-rays of the side to move by walking the eight rays out of its king.
+    private void computeLegality() {
+        int side = side(currentPlayer);
+        int king = kingSquare(currentPlayer);
+        checkers = attacks[1 - side][king];
+        evasionTargets = checkers == 0 ? -1L : 0L;
+        kingXrays = 0;
+        pinnedPieces = 0;
+        int[][] rays = Squares.RAYS[king];
+        for (int d = 0; d < 8; d++) {
+            int slider = d < Squares.FIRST_DIAGONAL ? PieceCode.ROOK : PieceCode.BISHOP;
+            long line = 0;
+            int shield = -1;
+            for (int target : rays[d]) {
+                line |= 1L << target;
+                int code = board.code(target);
+                if (code == PieceCode.EMPTY) continue;
+                if (PieceRegistry.side(code) == side) {
+                    if (shield >= 0) break;
+                    shield = target;
+                    continue;
+                }
+                int type = PieceCode.type(code);
+                if (type == PieceCode.QUEEN || type == slider) {
+                    if (shield >= 0) {
+                        pinnedPieces |= 1L << shield;
+                        pinLines[shield] = line;
+                    } else {
+                        if (checkers == 1) evasionTargets = line;
+                        int[] behind = rays[Squares.OPPOSITE[d]];
+                        if (behind.length > 0) kingXrays |= 1L << behind[0];
+                    }
+                }
+                break;
+            }
+        }
+        // A single knight or pawn check can only be answered by taking the checker.
+        if (checkers == 1 && evasionTargets == 0) evasionTargets = 1L << contactChecker(king, side);
     }
 
-    private void undoMove(Position source, Position target, Piece capturedPiece) {
-        ChessPiece p = (ChessPiece) board.removePiece(target);
-        p.descreaseMoveCount();
-        board.placePiece(p, source);
+    private int contactChecker(int king, int side) {
+        Color enemy = side == 0 ? Color.BLACK : Color.WHITE;
+        byte knight = PieceCode.of(PieceCode.KNIGHT, enemy);
+        for (int square : Squares.KNIGHT_TARGETS[king]) {
+            if (board.code(square) == knight) return square;
+        }
+        byte pawn = PieceCode.of(PieceCode.PAWN, enemy);
+        for (int square : Squares.PAWN_ATTACKS[side][king]) {
+            if (board.code(square) == pawn) return square;
+        }
+        throw new IllegalStateException("The attack maps count a checker that isn't there");
+    }
 
-        if (capturedPiece != null) {
-            board.placePiece(capturedPiece, target);
-            capturedPieces.remove(capturedPiece);
-            piecesOnTheBoard.add(capturedPiece);
+    // Whether a move of the generators is legal, from what computeLegality found; no move is made except
+    // for en passant, which can uncover the king along the rank through both pawns at once.
+    private boolean isLegal(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int enemy = 1 - side(currentPlayer);
+        if (from == kingSquares[1 - enemy]) {
+            if (ChessMove.isCastling(move))
+                return checkers == 0 && attacks[enemy][(from + to) / 2] == 0 && attacks[enemy][to] == 0;
+            return attacks[enemy][to] == 0 && (kingXrays & 1L << to) == 0;
         }
+        if (ChessMove.isEnPassant(move)) return leavesKingSafe(move);
+        if ((evasionTargets & 1L << to) == 0) return false;
+        return (pinnedPieces & 1L << from) == 0 || (pinLines[from] & 1L << to) != 0;
+    }
 
-        if (p instanceof King && target.getCol() == source.getCol() + 2) {
-            Position sourceRook = new Position(source.getRow(), source.getCol()+3);
-            Position targetRook = new Position(source.getRow(), source.getCol()+1);
-            ChessPiece rook = (ChessPiece) board.removePiece(targetRook);
-            board.placePiece(rook, sourceRook);
-            rook.descreaseMoveCount();
+    private boolean leavesKingSafe(int move) {
+        Color mover = currentPlayer;
+        makeMove(move);
+        boolean legal = !testCheck(mover);
+        unmakeMove();
+        return legal;
+    }
+
+    // Plays a move produced by the generators without any validation; unmakeMove takes it back.
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (ply == moveStack.length) growStacks();
+        keyStack[ply] = key;
+        stateStack[ply] = castlingRights | halfMoveClock << 4;
+        key ^= Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+
+        ChessPiece p = take(from);
+        p.increaseMoveCount();
+
+        ChessPiece capturedPiece;
+        if (ChessMove.isEnPassant(move)) {
+            capturedPiece = take(enPassantCaptureSquare(p.getColor(), to));
+        } else {
+            capturedPiece = take(to);
         }
 
-        if (p instanceof King && target.getCol() == source.getCol() - 2) {
-            Position sourceRook = new Position(source.getRow(), source.getCol()-4);
-            Position targetRook = new Position(source.getRow(), source.getCol()-1);
-            ChessPiece rook = (ChessPiece) board.removePiece(targetRook);
-            board.placePiece(rook, sourceRook);
-            rook.descreaseMoveCount();
+        ChessPiece promotedPawn = null;
+        if (ChessMove.isPromotion(move)) {
+            promotedPawn = p;
+            p = newPiece(ChessMove.promotionType(move), p.getColor());
         }
+        put(p, to);
 
-        if (p instanceof Pawn) {
-            if (source.getCol() != target.getCol() && capturedPiece == enPassantVunerable){
-                ChessPiece pawn = (ChessPiece) board.removePiece(target);
-                int row = p.getColor() == Color.WHITE ? 3 : 4;
-                Position pawnPosition = new Position(row, target.getCol());
-                board.placePiece(pawn, pawnPosition);
-            }
+        if (ChessMove.isCastling(move)) {
+            ChessPiece rook = take(to > from ? from + 3 : from - 4);
+            put(rook, to > from ? from + 1 : from - 1);
+            rook.increaseMoveCount();
         }
+
+        moveStack[ply] = move;
+        capturedStack[ply] = capturedPiece;
+        enPassantStack[ply] = enPassantVunerable;
+        promotedPawnStack[ply] = promotedPawn;
+        ply++;
+
+        castlingRights &= CASTLING_MASK[from] & CASTLING_MASK[to];
+        halfMoveClock = capturedPiece != null || promotedPawn != null || p.getType() == PieceCode.PAWN ? 0 : halfMoveClock + 1;
+        enPassantVunerable = (Move.flags(move) & ChessMove.DOUBLE_PUSH) != 0 ? p : null;
+        nextTurn();
+        key ^= Zobrist.SIDE ^ Zobrist.CASTLING[castlingRights] ^ enPassantKey();
+        repetitions.add(key);
     }
 
-    private void validadeSourcePosition(Position source) {
-        if (!board.thereIsAPiece(source)) throw new ChessException("There is not piece on source position.");
-        if (currentPlayer != ((ChessPiece) board.piece(source)).getColor())
-            throw new ChessException("The chosen piece is not yours.");
-        if (!board.piece(source).isThereAnyPossibleMove())
-            throw new ChessException("There is no possible moves for the choose piece.");
+    public void unmakeMove() {
+        if (ply == 0) throw new IllegalStateException("There is no move to undo.");
+        repetitions.remove(key);
+        ply--;
+        int move = moveStack[ply];
+        int from = Move.from(move);
+        int to = Move.to(move);
+        previousTurn();
+        enPassantVunerable = enPassantStack[ply];
+
+        ChessPiece p = take(to);
+        if (promotedPawnStack[ply] != null) p = promotedPawnStack[ply];
+        p.descreaseMoveCount();
+        put(p, from);
+
+        ChessPiece capturedPiece = capturedStack[ply];
+        if (capturedPiece != null) {
+            int square = ChessMove.isEnPassant(move) ? enPassantCaptureSquare(p.getColor(), to) : to;
+            put(capturedPiece, square);
+        }
+
+        if (ChessMove.isCastling(move)) {
+            ChessPiece rook = take(to > from ? from + 1 : from - 1);
+            put(rook, to > from ? from + 3 : from - 4);
+            rook.descreaseMoveCount();
+        }
+
+        capturedStack[ply] = null;
+        enPassantStack[ply] = null;
+        promotedPawnStack[ply] = null;
+        castlingRights = stateStack[ply] & 15;
+        halfMoveClock = stateStack[ply] >>> 4;
+        key = keyStack[ply];
     }
 
+    private int enPassantCaptureSquare(Color mover, int to) {
+        return mover == Color.WHITE ? to + board.getColumns() : to - board.getColumns();
+    }
+
+    private void growStacks() {
+        int length = moveStack.length * 2;
+        moveStack = Arrays.copyOf(moveStack, length);
+        capturedStack = Arrays.copyOf(capturedStack, length);
+        enPassantStack = Arrays.copyOf(enPassantStack, length);
+        promotedPawnStack = Arrays.copyOf(promotedPawnStack, length);
+        keyStack = Arrays.copyOf(keyStack, length);
+        stateStack = Arrays.copyOf(stateStack, length);
+        statusStack = Arrays.copyOf(statusStack, length + 1);
+    }
 
-    private void validateTargetPosition(Position source, Position target) {
-        if (!board.piece(source).possibleMove(target))
-            throw new ChessException("The chosen piece can't move to target position.");
+    // Leaves the source piece's moves in mateMoves and returns how many there are.
+    private int validadeSourcePosition(Position source) {
+        if (!board.thereIsAPiece(source)) throw new ChessException("There is not piece on source position.");
+        if (PieceCode.color(board.code(source.getRow(), source.getCol())) != currentPlayer)
+            throw new ChessException("The chosen piece is not yours.");
+        int count = board.piece(source).generateMoves(mateMoves, 0);
+        if (count == 0) throw new ChessException("There is no possible moves for the choose piece.");
+        return count;
     }
 
     public void initialSetup() {
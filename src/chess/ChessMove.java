@@ -0,0 +1,61 @@
+package chess;
+
+import boardgame.Move;
+
+public final class ChessMove {
+
+    // Flags stored in Move.flags(move).
+    public static final int CAPTURE = 1;
+    public static final int DOUBLE_PUSH = 2;
+    public static final int EN_PASSANT = 4;
+    public static final int CASTLING = 8;
+
+    // Promotion piece type (PieceCode.KNIGHT to PieceCode.QUEEN) is kept in flag bits 4-6.
+    private static final int PROMOTION_SHIFT = 4;
+
+    private ChessMove() {
+    }
+
+    public static int promotion(int type) {
+        return type << PROMOTION_SHIFT;
+    }
+
+    public static int withPromotion(int move, int type) {
+        return move & ~(PieceCode.TYPE_MASK << (16 + PROMOTION_SHIFT)) | type << (16 + PROMOTION_SHIFT);
+    }
+
+    public static int promotionType(int move) {
+        return (Move.flags(move) >>> PROMOTION_SHIFT) & PieceCode.TYPE_MASK;
+    }
+
+    public static boolean isCapture(int move) {
+        return (Move.flags(move) & (CAPTURE | EN_PASSANT)) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return promotionType(move) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (Move.flags(move) & CASTLING) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (Move.flags(move) & EN_PASSANT) != 0;
+    }
+
+    public static String toString(int move) {
+        String s = squareName(Move.from(move)) + squareName(Move.to(move));
+        return switch (promotionType(move)) {
+            case PieceCode.KNIGHT -> s + "n";
+            case PieceCode.BISHOP -> s + "b";
+            case PieceCode.ROOK -> s + "r";
+            case PieceCode.QUEEN -> s + "q";
+            default -> s;
+        };
+    }
+
+    public static String squareName(int square) {
+        return String.valueOf((char) ('a' + square % 8)) + (8 - square / 8);
+    }
+}
@@ -1,24 +1,40 @@
 package chess;
 
 import boardgame.Board;
+import boardgame.Move;
 import boardgame.Piece;
 import boardgame.Position;
+import chess.metrics.Metrics;
 
 public abstract class ChessPiece extends Piece {
     private final Color color;
+    private final byte code;
 
     private int moveCount;
 
+    // Slot in the owning match's PieceRegistry, -1 while off the board.
+    int registryIndex = -1;
 
-    public ChessPiece(Board board, Color color) {
+
+    public ChessPiece(Board board, Color color, int type) {
         super(board);
         this.color = color;
+        this.code = PieceCode.of(type, color);
     }
 
     public Color getColor() {
         return color;
     }
 
+    @Override
+    public byte getCode() {
+        return code;
+    }
+
+    public int getType() {
+        return PieceCode.type(code);
+    }
+
     public void increaseMoveCount(){
         moveCount++;
     }
@@ -31,9 +47,63 @@ public abstract class ChessPiece extends Piece {
         return moveCount;
     }
 
+    void setMoveCount(int moveCount) {
+        this.moveCount = moveCount;
+    }
+
     protected boolean isThereOpponentPiece(Position position) {
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p != null && p.getColor() != color;
+        return isThereOpponentPiece(position.getRow(), position.getCol());
+    }
+
+    protected boolean isThereOpponentPiece(int row, int column) {
+        return PieceCode.isOpponent(getBoard().code(row, column), code & PieceCode.BLACK);
+    }
+
+    protected int square() {
+        return position.getRow() * getBoard().getColumns() + position.getCol();
+    }
+
+    // Adds the moves along one direction until the edge, a friendly piece or a capture.
+    protected int slide(int[] moves, int n, int rowStep, int columnStep) {
+        Board board = getBoard();
+        int from = square();
+        int colorBit = code & PieceCode.BLACK;
+        int row = position.getRow() + rowStep;
+        int column = position.getCol() + columnStep;
+        while (board.positionExists(row, column)) {
+            int to = row * board.getColumns() + column;
+            byte target = board.code(to);
+            if (target != PieceCode.EMPTY) {
+                if (PieceCode.isOpponent(target, colorBit)) moves[n++] = Move.of(from, to, ChessMove.CAPTURE);
+                break;
+            }
+            moves[n++] = Move.of(from, to);
+            row += rowStep;
+            column += columnStep;
+        }
+        return n;
+    }
+
+    // Adds a single step move if the target is on the board and not taken by a friendly piece.
+    protected int step(int[] moves, int n, int rowStep, int columnStep) {
+        Board board = getBoard();
+        int row = position.getRow() + rowStep;
+        int column = position.getCol() + columnStep;
+        if (!board.positionExists(row, column)) return n;
+        int to = row * board.getColumns() + column;
+        byte target = board.code(to);
+        if (target == PieceCode.EMPTY) moves[n++] = Move.of(square(), to);
+        else if (PieceCode.isOpponent(target, code & PieceCode.BLACK)) moves[n++] = Move.of(square(), to, ChessMove.CAPTURE);
+        return n;
+    }
+
+    @Override
+    public boolean[][] possibleMoves() {
+        if (!Metrics.ENABLED) return super.possibleMoves();
+        long start = System.nanoTime();
+        boolean[][] moves = super.possibleMoves();
+        Metrics.possibleMoves(getType()).recordSince(start);
+        return moves;
     }
 
     public ChessPosition getChessPosition() {
@@ -0,0 +1,173 @@
+package chess;
+
+import chess.exceptions.ChessException;
+
+import java.util.Arrays;
+
+final class Fen {
+
+    private static final String SYMBOLS = " PNBRQK";
+
+    private Fen() {
+    }
+
+    static ChessMatch load(String fen) {
+        String[] fields = fields(fen);
+        if (fields.length < 4) throw new ChessException("Invalid FEN, expected at least 4 fields: " + fen);
+
+        Color player = switch (fields[1]) {
+            case "w" -> Color.WHITE;
+            case "b" -> Color.BLACK;
+            default -> throw new ChessException("Invalid side to move in FEN: " + fields[1]);
+        };
+        int fullMove = fields.length > 5 ? parseNumber(fields[5], 1) : 1;
+        int turn = 2 * (fullMove - 1) + (player == Color.WHITE ? 1 : 2);
+        ChessMatch match = new ChessMatch(player, turn);
+
+        match.placePieces(parsePlacement(fields[0]));
+        if (match.testCheck(player == Color.WHITE ? Color.BLACK : Color.WHITE))
+            throw new ChessException("Invalid FEN, the side not to move is in check: " + fen);
+        match.setCastlingRights(parseCastlingRights(match, fields[2]));
+        match.setHalfMoveClock(fields.length > 4 ? parseNumber(fields[4], 0) : 0);
+
+        if (!fields[3].equals("-")) {
+            ChessPosition target = parseSquare(fields[3]);
+            int square = match.getBoard().square(target.toPosition());
+            int pawnSquare = player == Color.WHITE ? square + 8 : square - 8;
+            if (pawnSquare >= 0 && pawnSquare < 64
+                    && match.getBoard().code(pawnSquare) == PieceCode.of(PieceCode.PAWN, player == Color.WHITE ? Color.BLACK : Color.WHITE))
+                match.setEnPassantVunerable((ChessPiece) match.getBoard().piece(pawnSquare));
+        }
+
+        match.resetHistory();
+        match.updateStatus();
+        return match;
+    }
+
+    static String save(PositionSnapshot position) {
+        StringBuilder sb = new StringBuilder(90);
+        for (int row = 0; row < 8; row++) {
+            int empty = 0;
+            for (int column = 0; column < 8; column++) {
+                int code = position.getPieceCode(row * 8 + column);
+                if (code == PieceCode.EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) sb.append(empty);
+                empty = 0;
+                char symbol = SYMBOLS.charAt(PieceCode.type(code));
+                sb.append(PieceCode.color(code) == Color.WHITE ? symbol : Character.toLowerCase(symbol));
+            }
+            if (empty > 0) sb.append(empty);
+            if (row < 7) sb.append('/');
+        }
+        boolean white = position.getCurrentPlayer() == Color.WHITE;
+        sb.append(white ? " w " : " b ");
+        int rights = position.getCastlingRights();
+        if ((rights & ChessMatch.WHITE_KING_SIDE) != 0) sb.append('K');
+        if ((rights & ChessMatch.WHITE_QUEEN_SIDE) != 0) sb.append('Q');
+        if ((rights & ChessMatch.BLACK_KING_SIDE) != 0) sb.append('k');
+        if ((rights & ChessMatch.BLACK_QUEEN_SIDE) != 0) sb.append('q');
+        if (rights == 0) sb.append('-');
+        sb.append(' ');
+        // The square the pawn skipped over, behind it as seen from its own side.
+        int pawn = position.getEnPassantSquare();
+        sb.append(pawn < 0 ? "-" : ChessMove.squareName(white ? pawn - 8 : pawn + 8));
+        sb.append(' ').append(position.getHalfMoveClock()).append(' ').append((position.getTurn() + 1) / 2);
+        return sb.toString();
+    }
+
+    // Splits on runs of whitespace without going through a regular expression.
+    private static String[] fields(String fen) {
+        String[] fields = new String[6];
+        int count = 0;
+        int i = 0;
+        while (i < fen.length()) {
+            if (fen.charAt(i) <= ' ') {
+                i++;
+                continue;
+            }
+            int start = i;
+            while (i < fen.length() && fen.charAt(i) > ' ') i++;
+            if (count == fields.length) throw new ChessException("Invalid FEN, too many fields: " + fen);
+            fields[count++] = fen.substring(start, i);
+        }
+        return Arrays.copyOf(fields, count);
+    }
+
+    // One PieceCode per square; exactly one king of each color and no pawn on the first or last rank.
+    private static byte[] parsePlacement(String placement) {
+        byte[] codes = new byte[64];
+        int[] kings = new int[2];
+        int row = 0;
+        int column = 0;
+        for (int i = 0; i < placement.length(); i++) {
+            char c = placement.charAt(i);
+            if (c == '/') {
+                if (column != 8) throw new ChessException("Invalid piece placement in FEN: " + placement);
+                row++;
+                column = 0;
+            } else if (c >= '1' && c <= '8') {
+                column += c - '0';
+                if (column > 8) throw new ChessException("Invalid piece placement in FEN: " + placement);
+            } else {
+                int type = SYMBOLS.indexOf(Character.toUpperCase(c));
+                if (type <= 0) throw new ChessException("Invalid piece in FEN: " + c);
+                if (row > 7 || column > 7) throw new ChessException("Invalid piece placement in FEN: " + placement);
+                if (type == PieceCode.PAWN && (row == 0 || row == 7))
+                    throw new ChessException("Invalid FEN, pawn on the first or last rank: " + placement);
+                Color color = Character.isUpperCase(c) ? Color.WHITE : Color.BLACK;
+                if (type == PieceCode.KING) kings[color == Color.WHITE ? 0 : 1]++;
+                codes[row * 8 + column] = PieceCode.of(type, color);
+                column++;
+            }
+        }
+        if (row != 7 || column != 8) throw new ChessException("Invalid piece placement in FEN: " + placement);
+        if (kings[0] != 1 || kings[1] != 1) throw new ChessException("Invalid FEN, each side needs exactly one king: " + placement);
+        return codes;
+    }
+
+    // Rights whose king or rook is not on its original square are dropped.
+    private static int parseCastlingRights(ChessMatch match, String field) {
+        int rights = 0;
+        for (int i = 0; i < field.length(); i++) {
+            switch (field.charAt(i)) {
+                case 'K' -> rights |= ChessMatch.WHITE_KING_SIDE;
+                case 'Q' -> rights |= ChessMatch.WHITE_QUEEN_SIDE;
+                case 'k' -> rights |= ChessMatch.BLACK_KING_SIDE;
+                case 'q' -> rights |= ChessMatch.BLACK_QUEEN_SIDE;
+                case '-' -> {
+                }
+                default -> throw new ChessException("Invalid castling rights in FEN: " + field);
+            }
+        }
+        if (!hasPieces(match, Color.WHITE, 60, 63)) rights &= ~ChessMatch.WHITE_KING_SIDE;
+        if (!hasPieces(match, Color.WHITE, 60, 56)) rights &= ~ChessMatch.WHITE_QUEEN_SIDE;
+        if (!hasPieces(match, Color.BLACK, 4, 7)) rights &= ~ChessMatch.BLACK_KING_SIDE;
+        if (!hasPieces(match, Color.BLACK, 4, 0)) rights &= ~ChessMatch.BLACK_QUEEN_SIDE;
+        return rights;
+    }
+
+    private static boolean hasPieces(ChessMatch match, Color color, int kingSquare, int rookSquare) {
+        return match.getBoard().code(kingSquare) == PieceCode.of(PieceCode.KING, color)
+                && match.getBoard().code(rookSquare) == PieceCode.of(PieceCode.ROOK, color);
+    }
+
+    private static ChessPosition parseSquare(String square) {
+        if (square.length() != 2) throw new ChessException("Invalid square in FEN: " + square);
+        return new ChessPosition(square.charAt(0), square.charAt(1) - '0');
+    }
+
+    // The halfmove clock starts at 0 and the fullmove number at 1; anything below min is rejected.
+    private static int parseNumber(String number, int min) {
+        int value;
+        try {
+            value = Integer.parseInt(number);
+        } catch (NumberFormatException e) {
+            throw new ChessException("Invalid number in FEN: " + number);
+        }
+        if (value < min) throw new ChessException("Invalid number in FEN: " + number);
+        return value;
+    }
+}
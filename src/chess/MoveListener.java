@@ -0,0 +1,14 @@
+package chess;
+
+// Receives the moves of a game as they are performed; moves are packed as in ChessMove.
+public interface MoveListener {
+
+    void movePerformed(ChessMatch match, int move);
+
+    // The last move again, now promoting to the piece chosen with replacePromotedPiece.
+    void promotionReplaced(ChessMatch match, int move);
+
+    // The last move was taken back with undoMove; redoMove reports the move again through movePerformed.
+    default void moveUndone(ChessMatch match) {
+    }
+}
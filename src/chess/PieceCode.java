@@ -0,0 +1,36 @@
+package chess;
+
+public final class PieceCode {
+
+    // A square code packs the piece type in the low 3 bits and the color in bit 3; 0 means empty.
+    public static final byte EMPTY = 0;
+
+    public static final int PAWN = 1;
+    public static final int KNIGHT = 2;
+    public static final int BISHOP = 3;
+    public static final int ROOK = 4;
+    public static final int QUEEN = 5;
+    public static final int KING = 6;
+
+    public static final int BLACK = 8;
+    public static final int TYPE_MASK = 7;
+
+    private PieceCode() {
+    }
+
+    public static byte of(int type, Color color) {
+        return (byte) (color == Color.BLACK ? type | BLACK : type);
+    }
+
+    public static int type(int code) {
+        return code & TYPE_MASK;
+    }
+
+    public static Color color(int code) {
+        return (code & BLACK) != 0 ? Color.BLACK : Color.WHITE;
+    }
+
+    public static boolean isOpponent(int code, int colorBit) {
+        return code != EMPTY && (code & BLACK) != colorBit;
+    }
+}
@@ -0,0 +1,54 @@
+package chess;
+
+import java.util.Arrays;
+
+// The pieces on the board grouped by color and type. Every piece remembers its slot, so adding and
+// removing are O(1) (the last piece of the group moves into the freed slot).
+final class PieceRegistry {
+
+    private final ChessPiece[][][] pieces = new ChessPiece[2][PieceCode.KING + 1][];
+    private final int[][] counts = new int[2][PieceCode.KING + 1];
+
+    PieceRegistry() {
+        for (int side = 0; side < 2; side++) {
+            for (int type = PieceCode.PAWN; type <= PieceCode.KING; type++) {
+                pieces[side][type] = new ChessPiece[type == PieceCode.KING ? 1 : 10];
+            }
+        }
+    }
+
+    static int side(int code) {
+        return (code & PieceCode.BLACK) == 0 ? 0 : 1;
+    }
+
+    void add(ChessPiece piece) {
+        int side = side(piece.getCode());
+        int type = piece.getType();
+        ChessPiece[] group = pieces[side][type];
+        int count = counts[side][type];
+        if (count == group.length) pieces[side][type] = group = Arrays.copyOf(group, count * 2);
+        group[count] = piece;
+        piece.registryIndex = count;
+        counts[side][type] = count + 1;
+    }
+
+    void remove(ChessPiece piece) {
+        int side = side(piece.getCode());
+        int type = piece.getType();
+        ChessPiece[] group = pieces[side][type];
+        int last = --counts[side][type];
+        ChessPiece moved = group[last];
+        group[piece.registryIndex] = moved;
+        moved.registryIndex = piece.registryIndex;
+        group[last] = null;
+        piece.registryIndex = -1;
+    }
+
+    int count(int side, int type) {
+        return counts[side][type];
+    }
+
+    ChessPiece get(int side, int type, int index) {
+        return pieces[side][type][index];
+    }
+}
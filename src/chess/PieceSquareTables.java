@@ -0,0 +1,129 @@
+package chess;
+
+// Material plus piece-square values in centipawns, for the middlegame and for the endgame, and the weight
+// of each piece in the game phase. ChessMatch adds them up as pieces come and go, the way it keeps the
+// Zobrist key, and chess.engine.Evaluation blends the two sums by the phase.
+public final class PieceSquareTables {
+
+    // Indexed by PieceCode type; the king is never traded, so it has no material value.
+    public static final int[] PIECE_VALUES = {0, 100, 320, 330, 500, 900, 0};
+
+    // Knights and bishops count 1, rooks 2 and queens 4, so the phase is MAX_PHASE with all of them on the
+    // board and 0 with only pawns and kings left. Promotions can take it past MAX_PHASE.
+    public static final int[] PHASE_WEIGHTS = {0, 0, 1, 1, 2, 4, 0};
+    public static final int MAX_PHASE = 24;
+
+    // Tables are written from white's point of view with a8 first, the order of board squares;
+    // black pieces read them mirrored vertically (square ^ 56).
+    private static final int[][] MIDDLEGAME_TABLES = {
+            {},
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    50, 50, 50, 50, 50, 50, 50, 50,
+                    10, 10, 20, 30, 30, 20, 10, 10,
+                    5, 5, 10, 25, 25, 10, 5, 5,
+                    0, 0, 0, 20, 20, 0, 0, 0,
+                    5, -5, -10, 0, 0, -10, -5, 5,
+                    5, 10, 10, -20, -20, 10, 10, 5,
+                    0, 0, 0, 0, 0, 0, 0, 0
+            },
+            {
+                    -50, -40, -30, -30, -30, -30, -40, -50,
+                    -40, -20, 0, 0, 0, 0, -20, -40,
+                    -30, 0, 10, 15, 15, 10, 0, -30,
+                    -30, 5, 15, 20, 20, 15, 5, -30,
+                    -30, 0, 15, 20, 20, 15, 0, -30,
+                    -30, 5, 10, 15, 15, 10, 5, -30,
+                    -40, -20, 0, 5, 5, 0, -20, -40,
+                    -50, -40, -30, -30, -30, -30, -40, -50
+            },
+            {
+                    -20, -10, -10, -10, -10, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 10, 10, 5, 0, -10,
+                    -10, 5, 5, 10, 10, 5, 5, -10,
+                    -10, 0, 10, 10, 10, 10, 0, -10,
+                    -10, 10, 10, 10, 10, 10, 10, -10,
+                    -10, 5, 0, 0, 0, 0, 5, -10,
+                    -20, -10, -10, -10, -10, -10, -10, -20
+            },
+            {
+                    0, 0, 0, 0, 0, 0, 0, 0,
+                    5, 10, 10, 10, 10, 10, 10, 5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    -5, 0, 0, 0, 0, 0, 0, -5,
+                    0, 0, 0, 5, 5, 0, 0, 0
+            },
+            {
+                    -20, -10, -10, -5, -5, -10, -10, -20,
+                    -10, 0, 0, 0, 0, 0, 0, -10,
+                    -10, 0, 5, 5, 5, 5, 0, -10,
+                    -5, 0, 5, 5, 5, 5, 0, -5,
+                    0, 0, 5, 5, 5, 5, 0, -5,
+                    -10, 5, 5, 5, 5, 5, 0, -10,
+                    -10, 0, 5, 0, 0, 0, 0, -10,
+                    -20, -10, -10, -5, -5, -10, -10, -20
+            },
+            {
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -30, -40, -40, -50, -50, -40, -40, -30,
+                    -20, -30, -30, -40, -40, -30, -30, -20,
+                    -10, -20, -20, -20, -20, -20, -20, -10,
+                    20, 20, 0, 0, 0, 0, 20, 20,
+                    20, 30, 10, 0, 0, 10, 30, 20
+            }
+    };
+
+    // In the endgame the king leaves its shelter for the centre; the other pieces keep their tables.
+    private static final int[] KING_ENDGAME_TABLE = {
+            -50, -40, -30, -20, -20, -30, -40, -50,
+            -30, -20, -10, 0, 0, -10, -20, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 30, 40, 40, 30, -10, -30,
+            -30, -10, 20, 30, 30, 20, -10, -30,
+            -30, -30, 0, 0, 0, 0, -30, -30,
+            -50, -30, -30, -30, -30, -30, -30, -50
+    };
+
+    // MIDDLEGAME[code][square] and ENDGAME[code][square], indexed by PieceCode square codes: material plus
+    // table value, negated for black, so a sum over the pieces on the board is the score for white.
+    static final int[][] MIDDLEGAME = new int[PieceCode.BLACK | PieceCode.KING + 1][Squares.COUNT];
+    static final int[][] ENDGAME = new int[PieceCode.BLACK | PieceCode.KING + 1][Squares.COUNT];
+    static final int[] PHASE = new int[PieceCode.BLACK | PieceCode.KING + 1];
+
+    static {
+        for (int type = PieceCode.PAWN; type <= PieceCode.KING; type++) {
+            int[] endgameTable = type == PieceCode.KING ? KING_ENDGAME_TABLE : MIDDLEGAME_TABLES[type];
+            for (int square = 0; square < Squares.COUNT; square++) {
+                MIDDLEGAME[type][square] = PIECE_VALUES[type] + MIDDLEGAME_TABLES[type][square];
+                ENDGAME[type][square] = PIECE_VALUES[type] + endgameTable[square];
+                MIDDLEGAME[type | PieceCode.BLACK][square] = -(PIECE_VALUES[type] + MIDDLEGAME_TABLES[type][square ^ 56]);
+                ENDGAME[type | PieceCode.BLACK][square] = -(PIECE_VALUES[type] + endgameTable[square ^ 56]);
+            }
+            PHASE[type] = PHASE_WEIGHTS[type];
+            PHASE[type | PieceCode.BLACK] = PHASE_WEIGHTS[type];
+        }
+    }
+
+    private PieceSquareTables() {
+    }
+
+    // Middlegame value for white of a piece with the PieceCode on the square.
+    public static int middlegame(int code, int square) {
+        return MIDDLEGAME[code][square];
+    }
+
+    public static int endgame(int code, int square) {
+        return ENDGAME[code][square];
+    }
+
+    public static int phase(int code) {
+        return PHASE[code];
+    }
+}
@@ -0,0 +1,148 @@
+package chess;
+
+import chess.exceptions.ChessException;
+
+import java.util.Arrays;
+
+// Immutable copy of a position: the 64 square codes packed four bits each into four longs, plus the state
+// needed to go on playing from it. It holds no reference to the match, board or pieces it came from, so it
+// can be handed to any thread and turned back into an independent match with ChessMatch.fromSnapshot.
+public final class PositionSnapshot {
+
+    private final long[] squares;
+    private final Color currentPlayer;
+    private final int turn;
+    private final int castlingRights;
+    private final int enPassantSquare;
+    private final int halfMoveClock;
+    private final long positionKey;
+
+    PositionSnapshot(long[] squares, Color currentPlayer, int turn, int castlingRights, int enPassantSquare,
+                     int halfMoveClock, long positionKey) {
+        this.squares = squares;
+        this.currentPlayer = currentPlayer;
+        this.turn = turn;
+        this.castlingRights = castlingRights;
+        this.enPassantSquare = enPassantSquare;
+        this.halfMoveClock = halfMoveClock;
+        this.positionKey = positionKey;
+    }
+
+    static int code(long[] packed, int square) {
+        return (int) (packed[square >>> 4] >>> ((square & 15) << 2)) & 0xF;
+    }
+
+    // Square indexed as row * 8 + column, row 0 being rank 8.
+    public int getPieceCode(int square) {
+        return code(squares, square);
+    }
+
+    public Color getCurrentPlayer() {
+        return currentPlayer;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    // Square of the pawn that can be taken en passant, -1 if there is none.
+    public int getEnPassantSquare() {
+        return enPassantSquare;
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    public long getPositionKey() {
+        return positionKey;
+    }
+
+    // Compact text form: the four packed longs in hex, then side to move, turn, castling rights,
+    // en passant pawn square and halfmove clock.
+    public String encode() {
+        return String.format("%016x%016x%016x%016x %s %d %d %d %d", squares[0], squares[1], squares[2], squares[3],
+                currentPlayer == Color.WHITE ? "w" : "b", turn, castlingRights, enPassantSquare, halfMoveClock);
+    }
+
+    public static PositionSnapshot decode(String text) {
+        String[] fields = text.trim().split("\\s+");
+        if (fields.length != 6 || fields[0].length() != 64) throw new ChessException("Invalid position snapshot: " + text);
+        try {
+            long[] squares = new long[4];
+            for (int i = 0; i < 4; i++) squares[i] = Long.parseUnsignedLong(fields[0].substring(16 * i, 16 * i + 16), 16);
+            Color player = switch (fields[1]) {
+                case "w" -> Color.WHITE;
+                case "b" -> Color.BLACK;
+                default -> throw new ChessException("Invalid side to move in position snapshot: " + fields[1]);
+            };
+            return of(squares, player, Integer.parseInt(fields[2]), Integer.parseInt(fields[3]),
+                    Integer.parseInt(fields[4]), Integer.parseInt(fields[5]));
+        } catch (NumberFormatException e) {
+            throw new ChessException("Invalid position snapshot: " + text);
+        }
+    }
+
+    // Builds a snapshot from its parts, as returned by getPackedSquares and the getters.
+    public static PositionSnapshot of(long[] packedSquares, Color currentPlayer, int turn, int castlingRights,
+                                      int enPassantSquare, int halfMoveClock) {
+        long[] squares = packedSquares.clone();
+        if (squares.length != 4) throw new ChessException("Expected 4 packed square words, got " + squares.length);
+        for (int square = 0; square < Squares.COUNT; square++) {
+            int code = code(squares, square);
+            if (PieceCode.type(code) > PieceCode.KING || PieceCode.type(code) == 0 && code != PieceCode.EMPTY)
+                throw new ChessException("Invalid piece code " + code + " on square " + square);
+        }
+        if (castlingRights < 0 || castlingRights > 15) throw new ChessException("Invalid castling rights: " + castlingRights);
+        if (enPassantSquare < -1 || enPassantSquare >= Squares.COUNT
+                || enPassantSquare >= 0 && PieceCode.type(code(squares, enPassantSquare)) != PieceCode.PAWN)
+            throw new ChessException("Invalid en passant square: " + enPassantSquare);
+        if (turn < 1 || halfMoveClock < 0) throw new ChessException("Invalid turn or halfmove clock: " + turn + ", " + halfMoveClock);
+        return new PositionSnapshot(squares, currentPlayer, turn, castlingRights, enPassantSquare, halfMoveClock,
+                Zobrist.key(squares, currentPlayer, castlingRights, enPassantSquare));
+    }
+
+    // The square codes, sixteen squares of four bits in each long.
+    public long[] getPackedSquares() {
+        return squares.clone();
+    }
+
+    public String toFen() {
+        return Fen.save(this);
+    }
+
+    public ChessMatch toMatch() {
+        return ChessMatch.fromSnapshot(this);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PositionSnapshot other)) return false;
+        return positionKey == other.positionKey && Arrays.equals(squares, other.squares)
+                && currentPlayer == other.currentPlayer && turn == other.turn
+                && castlingRights == other.castlingRights && enPassantSquare == other.enPassantSquare
+                && halfMoveClock == other.halfMoveClock;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(positionKey) * 31 + turn;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int square = 0; square < Squares.COUNT; square++) {
+            int code = getPieceCode(square);
+            char symbol = code == PieceCode.EMPTY ? '-' : ".PNBRQK".charAt(PieceCode.type(code));
+            sb.append((code & PieceCode.BLACK) != 0 ? Character.toLowerCase(symbol) : symbol);
+            if (square % 8 == 7 && square != 63) sb.append('/');
+        }
+        return "PositionSnapshot[" + sb + " " + (currentPlayer == Color.WHITE ? "w" : "b") + ", turn " + turn + "]";
+    }
+}
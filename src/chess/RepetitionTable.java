@@ -0,0 +1,80 @@
+package chess;
+
+// Multiset of position keys (open addressing, linear probing, backward-shift deletion), so the number
+// of occurrences of a position is known without walking the game.
+final class RepetitionTable {
+
+    private long[] keys = new long[256];
+    private int[] counts = new int[256];
+    private int size;
+
+    int add(long key) {
+        if (2 * (size + 1) > keys.length) resize(keys.length * 2);
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (counts[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+        if (counts[i] == 0) {
+            keys[i] = key;
+            size++;
+        }
+        return ++counts[i];
+    }
+
+    void remove(long key) {
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (counts[i] != 0 && keys[i] != key) i = (i + 1) & mask;
+        if (counts[i] == 0) return;
+        if (--counts[i] > 0) return;
+        size--;
+        // Shift the following entries of the cluster back so lookups never stop at the hole.
+        int hole = i;
+        for (int j = (i + 1) & mask; counts[j] != 0; j = (j + 1) & mask) {
+            int home = index(keys[j], mask);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                counts[hole] = counts[j];
+                counts[j] = 0;
+                hole = j;
+            }
+        }
+    }
+
+    int count(long key) {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); counts[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == key) return counts[i];
+        }
+        return 0;
+    }
+
+    void copyFrom(RepetitionTable other) {
+        keys = other.keys.clone();
+        counts = other.counts.clone();
+        size = other.size;
+    }
+
+    void clear() {
+        java.util.Arrays.fill(counts, 0);
+        size = 0;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        int mask = capacity - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldCounts[j] == 0) continue;
+            int i = index(oldKeys[j], mask);
+            while (counts[i] != 0) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            counts[i] = oldCounts[j];
+        }
+    }
+
+    private static int index(long key, int mask) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+}
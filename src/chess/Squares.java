@@ -0,0 +1,58 @@
+package chess;
+
+// Precomputed geometry of the 8x8 board. Squares are indexed row * 8 + column with row 0 being rank 8.
+public final class Squares {
+
+    public static final int COUNT = 64;
+
+    // Directions 0-3 are orthogonal (up, down, left, right), 4-7 diagonal (nw, ne, sw, se).
+    public static final int[] ROW_STEP = {-1, 1, 0, 0, -1, -1, 1, 1};
+    public static final int[] COLUMN_STEP = {0, 0, -1, 1, -1, 1, -1, 1};
+    public static final int FIRST_DIAGONAL = 4;
+    public static final int[] OPPOSITE = {1, 0, 3, 2, 7, 6, 5, 4};
+
+    // RAYS[square][direction] lists the squares from the square to the edge, nearest first.
+    public static final int[][][] RAYS = new int[COUNT][8][];
+    public static final int[][] KNIGHT_TARGETS = new int[COUNT][];
+    public static final int[][] KING_TARGETS = new int[COUNT][];
+    // PAWN_ATTACKS[side][square] holds the squares a pawn of that side (0 white, 1 black) attacks.
+    public static final int[][][] PAWN_ATTACKS = new int[2][COUNT][];
+
+    private static final int[] KNIGHT_ROW = {-1, -2, -2, -1, 1, 2, 2, 1};
+    private static final int[] KNIGHT_COLUMN = {-2, -1, 1, 2, 2, 1, -1, -2};
+
+    static {
+        for (int square = 0; square < COUNT; square++) {
+            int row = square / 8;
+            int column = square % 8;
+            for (int d = 0; d < 8; d++) {
+                int length = 0;
+                int[] ray = new int[7];
+                for (int r = row + ROW_STEP[d], c = column + COLUMN_STEP[d]; exists(r, c); r += ROW_STEP[d], c += COLUMN_STEP[d])
+                    ray[length++] = r * 8 + c;
+                RAYS[square][d] = java.util.Arrays.copyOf(ray, length);
+            }
+            KNIGHT_TARGETS[square] = targets(row, column, KNIGHT_ROW, KNIGHT_COLUMN);
+            KING_TARGETS[square] = targets(row, column, ROW_STEP, COLUMN_STEP);
+            PAWN_ATTACKS[0][square] = targets(row, column, new int[]{-1, -1}, new int[]{-1, 1});
+            PAWN_ATTACKS[1][square] = targets(row, column, new int[]{1, 1}, new int[]{-1, 1});
+        }
+    }
+
+    private Squares() {
+    }
+
+    public static boolean exists(int row, int column) {
+        return row >= 0 && row < 8 && column >= 0 && column < 8;
+    }
+
+    private static int[] targets(int row, int column, int[] rowSteps, int[] columnSteps) {
+        int[] targets = new int[rowSteps.length];
+        int length = 0;
+        for (int i = 0; i < rowSteps.length; i++) {
+            if (exists(row + rowSteps[i], column + columnSteps[i]))
+                targets[length++] = (row + rowSteps[i]) * 8 + column + columnSteps[i];
+        }
+        return java.util.Arrays.copyOf(targets, length);
+    }
+}
@@ -0,0 +1,48 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+// Random keys XORed together into a 64-bit position key. The seed is fixed so keys are stable between
+// runs and can be stored in files.
+public final class Zobrist {
+
+    // PIECES[code][square], indexed by PieceCode square codes.
+    static final long[][] PIECES = new long[PieceCode.BLACK | PieceCode.KING + 1][Squares.COUNT];
+    static final long SIDE;
+    static final long[] CASTLING = new long[16];
+    static final long[] EN_PASSANT_FILE = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+        for (long[] keys : PIECES) {
+            for (int square = 0; square < keys.length; square++) keys[square] = random.nextLong();
+        }
+        SIDE = random.nextLong();
+        for (int i = 1; i < CASTLING.length; i++) CASTLING[i] = random.nextLong();
+        for (int i = 0; i < EN_PASSANT_FILE.length; i++) EN_PASSANT_FILE[i] = random.nextLong();
+    }
+
+    private Zobrist() {
+    }
+
+    // Key of a position given as packed square codes (see PositionSnapshot); enPassantSquare is the square
+    // of the pawn that can be taken en passant, -1 if none.
+    static long key(long[] squares, Color player, int castlingRights, int enPassantSquare) {
+        long k = 0;
+        for (int square = 0; square < Squares.COUNT; square++) {
+            int code = PositionSnapshot.code(squares, square);
+            if (code != PieceCode.EMPTY) k ^= PIECES[code][square];
+        }
+        if (player == Color.BLACK) k ^= SIDE;
+        k ^= CASTLING[castlingRights];
+        if (enPassantSquare >= 0) {
+            // The file only counts when a pawn of the side to move could actually take.
+            int column = enPassantSquare % 8;
+            int capturer = PieceCode.of(PieceCode.PAWN, player);
+            if (column > 0 && PositionSnapshot.code(squares, enPassantSquare - 1) == capturer
+                    || column < 7 && PositionSnapshot.code(squares, enPassantSquare + 1) == capturer)
+                k ^= EN_PASSANT_FILE[column];
+        }
+        return k;
+    }
+}
@@ -0,0 +1,103 @@
+package chess.book;
+
+import chess.ChessMatch;
+import chess.ChessMove;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Opening book read straight from a memory-mapped file: nothing is loaded on the heap, a lookup is a binary
+// search over the mapping, and every JVM opening the same file shares its pages through the page cache. Only
+// absolute reads are made on the mapping, so one book can be used by any number of threads.
+//
+// The file is a 16-byte header, the magic "CHESSBK1" and the entry count (long), followed by 16-byte entries
+// sorted by position key and, for each key, by count from most to least played:
+//   key (long)    ChessMatch.getPositionKey() of the position
+//   move (int)    the move played there, packed as in ChessMove
+//   count (int)   how many games of the source played it
+// OpeningBookBuilder writes it; all values are big-endian.
+public final class OpeningBook {
+
+    static final long MAGIC = 0x4348455353424B31L;
+    static final int HEADER_SIZE = 16;
+    static final int ENTRY_SIZE = 16;
+
+    private final MappedByteBuffer entries;
+    private final int size;
+
+    private OpeningBook(MappedByteBuffer entries, int size) {
+        this.entries = entries;
+        this.size = size;
+    }
+
+    // Maps the book; the file is not kept open, the mapping stays valid until the book is collected.
+    public static OpeningBook open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE || length > Integer.MAX_VALUE || (length - HEADER_SIZE) % ENTRY_SIZE != 0)
+                throw new IOException("Not an opening book: " + file);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            if (buffer.getLong(0) != MAGIC || buffer.getLong(8) != (length - HEADER_SIZE) / ENTRY_SIZE)
+                throw new IOException("Not an opening book: " + file);
+            return new OpeningBook(buffer, (int) ((length - HEADER_SIZE) / ENTRY_SIZE));
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Index of the first (most played) entry for the key, -1 when the position is not in the book.
+    public int find(long key) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(key(middle), key) < 0) low = middle + 1;
+            else high = middle;
+        }
+        return low < size && key(low) == key ? low : -1;
+    }
+
+    public long key(int index) {
+        return entries.getLong(HEADER_SIZE + index * ENTRY_SIZE);
+    }
+
+    public int move(int index) {
+        return entries.getInt(HEADER_SIZE + index * ENTRY_SIZE + 8);
+    }
+
+    public int count(int index) {
+        return entries.getInt(HEADER_SIZE + index * ENTRY_SIZE + 12);
+    }
+
+    // Shows the book moves of a position and how long a lookup through ChessMatch takes:
+    //   OpeningBook <book> [fen]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: OpeningBook <book> [fen]");
+            System.exit(2);
+        }
+        OpeningBook book = open(Path.of(args[0]));
+        ChessMatch match = args.length > 1 ? ChessMatch.fromFen(args[1]) : new ChessMatch();
+        System.out.printf("%,d entries%n", book.size());
+        int first = book.find(match.getPositionKey());
+        for (int i = first; i >= 0 && i < book.size() && book.key(i) == match.getPositionKey(); i++)
+            System.out.printf("%-6s %,d%n", ChessMove.toString(book.move(i)), book.count(i));
+
+        int[] moves = new int[ChessMatch.MAX_MOVES];
+        int found = 0;
+        for (int round = 0; round < 5; round++) {
+            int lookups = 1_000_000;
+            long start = System.nanoTime();
+            for (int i = 0; i < lookups; i++) found += match.getBookMoves(book, moves, 0);
+            System.out.printf("getBookMoves: %,d ns per lookup%n", (System.nanoTime() - start) / lookups);
+        }
+        if (found < 0) System.out.println(found);
+    }
+}
@@ -0,0 +1,210 @@
+package chess.book;
+
+import chess.ChessMatch;
+import chess.exceptions.ChessException;
+import chess.pgn.PgnGame;
+import chess.pgn.PgnReader;
+import chess.pgn.San;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Compiles an OpeningBook from games: every (position, move) pair of the first plies of each game is
+// collected in two primitive arrays, and write() sorts them, counts the duplicates and writes the file.
+public final class OpeningBookBuilder {
+
+    private final int maxPlies;
+    private final int minCount;
+    private long[] keys = new long[1 << 16];
+    private int[] moves = new int[1 << 16];
+    private int size;
+    private long games;
+    private long rejected;
+    private final int[] buffer = new int[ChessMatch.MAX_MOVES];
+
+    // Only the first maxPlies of each game go in the book, and only moves played at least minCount times.
+    public OpeningBookBuilder(int maxPlies, int minCount) {
+        if (maxPlies < 1 || minCount < 1) throw new IllegalArgumentException("maxPlies and minCount must be positive");
+        this.maxPlies = maxPlies;
+        this.minCount = minCount;
+    }
+
+    // Adds the opening of the game, from its FEN tag position if it has one. A move that doesn't parse ends
+    // the game there; what came before it is kept.
+    public void add(PgnGame game) {
+        games++;
+        ChessMatch match;
+        try {
+            String fen = game.getTag("FEN");
+            match = fen == null ? new ChessMatch() : ChessMatch.fromFen(fen);
+        } catch (ChessException e) {
+            rejected++;
+            return;
+        }
+        List<String> sans = game.getMoves();
+        for (int ply = 0; ply < maxPlies && ply < sans.size(); ply++) {
+            int move;
+            try {
+                move = San.parse(match, sans.get(ply), buffer);
+            } catch (ChessException e) {
+                rejected++;
+                return;
+            }
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                moves = Arrays.copyOf(moves, size * 2);
+            }
+            keys[size] = match.getPositionKey();
+            moves[size++] = move;
+            match.makeMove(move);
+        }
+    }
+
+    public void addAll(Path pgn) throws IOException {
+        try (PgnReader reader = PgnReader.open(pgn)) {
+            PgnGame game;
+            while ((game = reader.next()) != null) add(game);
+        }
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    // Games with an unreadable FEN or a bad move within the book plies.
+    public long getRejected() {
+        return rejected;
+    }
+
+    // Writes the book and returns its number of entries. The file is written next to the target and moved
+    // over it, so a JVM that maps the old book keeps reading a complete file.
+    public int write(Path file) throws IOException {
+        sort(0, size);
+        long[] bookKeys = new long[Math.max(1, size)];
+        int[] bookMoves = new int[bookKeys.length];
+        int[] counts = new int[bookKeys.length];
+        int entries = 0;
+        for (int i = 0; i < size; ) {
+            int j = i;
+            while (j < size && keys[j] == keys[i] && moves[j] == moves[i]) j++;
+            if (j - i >= minCount) {
+                bookKeys[entries] = keys[i];
+                bookMoves[entries] = moves[i];
+                counts[entries++] = j - i;
+            }
+            i = j;
+        }
+        // Most played first within each position; a position has a few moves, so insertion sort will do.
+        for (int i = 1; i < entries; i++) {
+            for (int j = i; j > 0 && bookKeys[j - 1] == bookKeys[j] && counts[j - 1] < counts[j]; j--) {
+                long key = bookKeys[j];
+                bookKeys[j] = bookKeys[j - 1];
+                bookKeys[j - 1] = key;
+                int move = bookMoves[j];
+                bookMoves[j] = bookMoves[j - 1];
+                bookMoves[j - 1] = move;
+                int count = counts[j];
+                counts[j] = counts[j - 1];
+                counts[j - 1] = count;
+            }
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer out = ByteBuffer.allocate(1 << 16);
+            out.putLong(OpeningBook.MAGIC).putLong(entries);
+            for (int i = 0; i < entries; i++) {
+                if (out.remaining() < OpeningBook.ENTRY_SIZE) drain(channel, out);
+                out.putLong(bookKeys[i]).putInt(bookMoves[i]).putInt(counts[i]);
+            }
+            drain(channel, out);
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return entries;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer out) throws IOException {
+        out.flip();
+        while (out.hasRemaining()) channel.write(out);
+        out.clear();
+    }
+
+    // Three-way quicksort of the pairs by unsigned key then move; the start position and the first few
+    // plies repeat in nearly every game, so equal runs must not degrade it.
+    private void sort(int from, int to) {
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            long pivotKey = keys[middle];
+            int pivotMove = moves[middle];
+            int lower = from;
+            int i = from;
+            int upper = to;
+            while (i < upper) {
+                int c = compare(i, pivotKey, pivotMove);
+                if (c < 0) swap(lower++, i++);
+                else if (c > 0) swap(i, --upper);
+                else i++;
+            }
+            // Recurse into the smaller side, loop on the larger.
+            if (lower - from < to - upper) {
+                sort(from, lower);
+                from = upper;
+            } else {
+                sort(upper, to);
+                to = lower;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(j - 1, keys[j], moves[j]) > 0; j--) swap(j, j - 1);
+        }
+    }
+
+    private int compare(int i, long key, int move) {
+        int c = Long.compareUnsigned(keys[i], key);
+        return c != 0 ? c : Integer.compare(moves[i], move);
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    //   OpeningBookBuilder <book> [--plies n] [--min n] <file.pgn>...
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: OpeningBookBuilder <book> [--plies n] [--min n] <file.pgn>...");
+            System.exit(2);
+        }
+        int plies = 24;
+        int min = 1;
+        List<Path> inputs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+                case "--plies" -> plies = Integer.parseInt(args[++i]);
+                case "--min" -> min = Integer.parseInt(args[++i]);
+                default -> inputs.add(Path.of(args[i]));
+            }
+        }
+        OpeningBookBuilder builder = new OpeningBookBuilder(plies, min);
+        long start = System.nanoTime();
+        for (Path input : inputs) builder.addAll(input);
+        Path book = Path.of(args[0]);
+        int entries = builder.write(book);
+        System.out.printf("%,d games (%,d cut short), %,d entries, %,d bytes in %,d ms%n", builder.getGames(),
+                builder.getRejected(), entries, Files.size(book), (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,55 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceCode;
+import chess.PieceSquareTables;
+
+// Material plus piece-square tables, scored in centipawns from the point of view of the side to move. The
+// middlegame and endgame sums are kept by ChessMatch as pieces move, so an evaluation is a blend of two
+// numbers by the phase: middlegame tables with every piece on the board, endgame ones with none left.
+public final class Evaluation {
+
+    // Run with -Dchess.evaluation.check=true to compare every evaluation with one added up from the board.
+    private static final boolean CHECK = Boolean.getBoolean("chess.evaluation.check");
+
+    private Evaluation() {
+    }
+
+    public static int evaluate(ChessMatch match) {
+        int score = blend(match.getMiddlegameScore(), match.getEndgameScore(), match.getPhase());
+        if (CHECK) check(match, score);
+        return match.getCurrentPlayer() == Color.WHITE ? score : -score;
+    }
+
+    // The same score computed from the 64 squares, without the sums ChessMatch keeps.
+    public static int evaluateFromScratch(ChessMatch match) {
+        int score = scoreFromScratch(match);
+        return match.getCurrentPlayer() == Color.WHITE ? score : -score;
+    }
+
+    private static int blend(int middlegame, int endgame, int phase) {
+        phase = Math.min(phase, PieceSquareTables.MAX_PHASE);
+        return (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+    }
+
+    private static int scoreFromScratch(ChessMatch match) {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int square = 0; square < 64; square++) {
+            int code = match.getPieceCode(square);
+            if (code == PieceCode.EMPTY) continue;
+            middlegame += PieceSquareTables.middlegame(code, square);
+            endgame += PieceSquareTables.endgame(code, square);
+            phase += PieceSquareTables.phase(code);
+        }
+        return blend(middlegame, endgame, phase);
+    }
+
+    private static void check(ChessMatch match, int score) {
+        int expected = scoreFromScratch(match);
+        if (score != expected)
+            throw new IllegalStateException("Evaluation " + score + " instead of " + expected + " in " + match.toFen());
+    }
+}
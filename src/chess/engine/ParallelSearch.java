@@ -0,0 +1,111 @@
+package chess.engine;
+
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.perft.PerftPosition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Lazy SMP: every thread runs the same iterative deepening on its own copy of the position and they only
+// cooperate through the shared transposition table. Helpers start at alternating depths so they fill the
+// table ahead of the main thread, whose result is the one returned.
+public class ParallelSearch implements AutoCloseable {
+
+    private final TranspositionTable table;
+    private final Search[] searches;
+    private final ExecutorService helpers;
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Invalid number of threads: " + threads);
+        this.table = table;
+        this.searches = new Search[threads];
+        for (int i = 0; i < threads; i++) searches[i] = new Search(table);
+        this.helpers = threads == 1 ? null : Executors.newFixedThreadPool(threads - 1, runnable -> {
+            Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    public void stop() {
+        for (Search search : searches) search.stop();
+    }
+
+    // Searches the position of the match with all threads; the match itself is only read, never modified.
+    public SearchResult search(ChessMatch match, SearchLimits limits) {
+        long start = System.nanoTime();
+        table.newSearch();
+        for (Search search : searches) search.reset();
+
+        List<Future<SearchResult>> futures = new ArrayList<>();
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            ChessMatch copy = match.copy();
+            int firstDepth = 1 + i % 2;
+            futures.add(helpers.submit(() -> helper.run(copy, limits, firstDepth)));
+        }
+        SearchResult result = searches[0].run(match.copy(), limits, 1);
+        for (int i = 1; i < searches.length; i++) searches[i].stop();
+
+        long nodes = searches[0].getNodes();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                futures.get(i).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the search helpers", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+            nodes += searches[i + 1].getNodes();
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                System.nanoTime() - start, result.getPrincipalVariation());
+    }
+
+    @Override
+    public void close() {
+        if (helpers != null) helpers.shutdownNow();
+    }
+
+    // Time to reach a fixed depth with 1, 2, 4... threads, from an empty table each time:
+    //   ParallelSearch [depth] [maxThreads] [hashMegabytes] [fen]
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 7;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int megabytes = args.length > 2 ? Integer.parseInt(args[2]) : 256;
+        String fen = args.length > 3 ? String.join(" ", Arrays.copyOfRange(args, 3, args.length)) : PerftPosition.KIWIPETE.getFen();
+
+        TranspositionTable table = new TranspositionTable(megabytes);
+        System.out.println("Position: " + fen + ", depth " + depth + ", " + megabytes + " MB hash");
+        System.out.printf("%7s %10s %14s %14s %14s %8s  %s%n", "threads", "ms", "nodes", "nodes/s", "nodes/s/thread", "speedup", "best move");
+        // One untimed search first so the single-thread baseline isn't paying for JIT compilation.
+        new Search(table).search(ChessMatch.fromFen(fen), SearchLimits.depth(Math.max(1, depth - 1)));
+        long baseline = 0;
+        for (int threads = 1; threads <= maxThreads; threads = threads == maxThreads ? threads + 1 : Math.min(threads * 2, maxThreads)) {
+            table.clear();
+            try (ParallelSearch search = new ParallelSearch(table, threads)) {
+                SearchResult result = search.search(ChessMatch.fromFen(fen), SearchLimits.depth(depth));
+                long millis = Math.max(1, result.getElapsedMillis());
+                if (threads == 1) baseline = millis;
+                System.out.printf("%7d %10d %,14d %,14d %,14d %7.2fx  %s%n", threads, millis, result.getNodes(),
+                        result.getNodesPerSecond(), result.getNodesPerSecond() / threads, (double) baseline / millis,
+                        ChessMove.toString(result.getBestMove()));
+            }
+        }
+    }
+}
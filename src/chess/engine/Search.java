@@ -0,0 +1,283 @@
+package chess.engine;
+
+import boardgame.Move;
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.PieceCode;
+import chess.PieceSquareTables;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Iterative-deepening alpha-beta over a ChessMatch, walking the tree with makeMove/unmakeMove.
+// Moves are tried hash move first, then captures by most valuable victim / least valuable attacker,
+// killer moves and finally quiet moves by history score. The leaves are resolved by a quiescence
+// search over captures and promotions.
+public class Search {
+
+    public static final int MAX_PLY = 128;
+    public static final int MATE = 30000;
+    public static final int INFINITY = 31000;
+
+    private static final int HASH_MOVE_SCORE = 2_000_000;
+    private static final int CAPTURE_SCORE = 1_000_000;
+    private static final int KILLER_SCORE = 900_000;
+
+    private final TranspositionTable table;
+
+    private final int[][] moves = new int[MAX_PLY][ChessMatch.MAX_MOVES];
+    private final int[][] moveScores = new int[MAX_PLY][ChessMatch.MAX_MOVES];
+    private final int[][] pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+    private final int[][] killers = new int[MAX_PLY][2];
+    private final int[][] history = new int[64][64];
+
+    private ChessMatch match;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean stopped;
+    private Consumer<SearchResult> listener;
+
+    public Search(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    // Called with the result of every completed iteration.
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    // Makes a running search return as soon as possible; safe to call from any thread.
+    public void stop() {
+        stopped = true;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    // Searches the current position of the match, which is left as it was found.
+    public SearchResult search(ChessMatch match, SearchLimits limits) {
+        table.newSearch();
+        reset();
+        return run(match, limits, 1);
+    }
+
+    void reset() {
+        stopped = false;
+    }
+
+    // Iterates from firstDepth up; helper threads of a parallel search start at different depths.
+    SearchResult run(ChessMatch match, SearchLimits limits, int firstDepth) {
+        long start = System.nanoTime();
+        this.match = match;
+        nodes = 0;
+        nodeLimit = limits.getNodes();
+        deadline = limits.getMillis() == Long.MAX_VALUE ? Long.MAX_VALUE : start + limits.getMillis() * 1_000_000;
+        for (int[] k : killers) Arrays.fill(k, 0);
+        for (int[] h : history) Arrays.fill(h, 0);
+
+        int count = match.generateLegalMoves(moves[0], 0);
+        if (count == 0) {
+            int score = match.isInCheck() ? -MATE : 0;
+            return new SearchResult(0, score, 0, 0, System.nanoTime() - start, new int[0]);
+        }
+        SearchResult result = new SearchResult(moves[0][0], 0, 0, 0, 0, new int[]{moves[0][0]});
+
+        for (int depth = firstDepth; depth <= limits.getDepth(); depth++) {
+            int score = alphaBeta(depth, 0, -INFINITY, INFINITY);
+            if (stopped) break;
+            long elapsed = System.nanoTime() - start;
+            result = new SearchResult(pv[0][0], score, depth, nodes, elapsed, Arrays.copyOf(pv[0], pvLength[0]));
+            if (listener != null) listener.accept(result);
+            if (Math.abs(score) >= MATE - depth) break;
+            // The next iteration costs several times this one, so don't start it if it can't finish.
+            if (deadline != Long.MAX_VALUE && start + 2 * elapsed > deadline) break;
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes,
+                System.nanoTime() - start, result.getPrincipalVariation());
+    }
+
+    private int alphaBeta(int depth, int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (ply > 0 && (match.getHalfMoveClock() >= 100 || match.getRepetitionCount() > 1)) return 0;
+
+        boolean inCheck = match.isInCheck();
+        if (inCheck) depth++;
+        if (depth <= 0) return quiescence(ply, alpha, beta);
+        if (ply >= MAX_PLY - 1) return Evaluation.evaluate(match);
+        if (countNode()) return 0;
+
+        long key = match.getPositionKey();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT
+                        || bound == TranspositionTable.LOWER_BOUND && score >= beta
+                        || bound == TranspositionTable.UPPER_BOUND && score <= alpha) return score;
+            }
+        }
+
+        int[] list = moves[ply];
+        int count = match.generateLegalMoves(list, 0);
+        if (count == 0) return inCheck ? -MATE + ply : 0;
+        scoreMoves(ply, count, hashMove);
+
+        int originalAlpha = alpha;
+        int best = -INFINITY;
+        int bestMove = 0;
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, i, count);
+            match.makeMove(move);
+            int score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha);
+            match.unmakeMove();
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+                bestMove = move;
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+                    if (score >= beta) {
+                        if (!isTactical(move)) rememberQuiet(ply, move, depth);
+                        break;
+                    }
+                }
+            }
+        }
+
+        int bound = best >= beta ? TranspositionTable.LOWER_BOUND
+                : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER_BOUND;
+        table.store(key, bestMove, toTable(best, ply), depth, bound);
+        return best;
+    }
+
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = ply;
+        if (countNode()) return 0;
+        int standPat = Evaluation.evaluate(match);
+        if (ply >= MAX_PLY - 1 || standPat >= beta) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        int[] list = moves[ply];
+        int count = match.generateTacticalMoves(list, 0);
+        scoreMoves(ply, count, 0);
+
+        for (int i = 0; i < count; i++) {
+            int move = nextMove(ply, i, count);
+            match.makeMove(move);
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            match.unmakeMove();
+            if (stopped) return 0;
+            if (score > alpha) {
+                if (score >= beta) return score;
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    // Returns true when the budget is spent and the search must unwind.
+    private boolean countNode() {
+        if (++nodes >= nodeLimit) stopped = true;
+        if ((nodes & 1023) == 0 && System.nanoTime() >= deadline) stopped = true;
+        return stopped;
+    }
+
+    private void scoreMoves(int ply, int count, int hashMove) {
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            if (move == hashMove) {
+                scores[i] = HASH_MOVE_SCORE;
+            } else if (isTactical(move)) {
+                int victim = ChessMove.isEnPassant(move) ? PieceCode.PAWN : PieceCode.type(match.getPieceCode(Move.to(move)));
+                int attacker = PieceCode.type(match.getPieceCode(Move.from(move)));
+                int gain = PieceSquareTables.PIECE_VALUES[victim] + PieceSquareTables.PIECE_VALUES[ChessMove.promotionType(move)];
+                scores[i] = CAPTURE_SCORE + 16 * gain - attacker;
+            } else if (move == killers[ply][0]) {
+                scores[i] = KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                scores[i] = KILLER_SCORE - 1;
+            } else {
+                scores[i] = history[Move.from(move)][Move.to(move)];
+            }
+        }
+    }
+
+    // Selection sort step: moves the best remaining move to index i.
+    private int nextMove(int ply, int i, int count) {
+        int[] list = moves[ply];
+        int[] scores = moveScores[ply];
+        int best = i;
+        for (int j = i + 1; j < count; j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        int move = list[best];
+        list[best] = list[i];
+        list[i] = move;
+        int score = scores[best];
+        scores[best] = scores[i];
+        scores[i] = score;
+        return move;
+    }
+
+    private void rememberQuiet(int ply, int move, int depth) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] row = history[Move.from(move)];
+        int to = Move.to(move);
+        row[to] = Math.min(row[to] + depth * depth, KILLER_SCORE - 2);
+    }
+
+    private void updatePv(int ply, int move) {
+        int[] line = pv[ply];
+        line[ply] = move;
+        int[] child = pv[ply + 1];
+        int length = pvLength[ply + 1];
+        for (int i = ply + 1; i < length; i++) line[i] = child[i];
+        pvLength[ply] = length;
+    }
+
+    private static boolean isTactical(int move) {
+        return ChessMove.isCapture(move) || ChessMove.isPromotion(move);
+    }
+
+    // Mate scores are stored relative to the node so they stay valid when reached through another path.
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score + ply;
+        if (score <= -MATE + MAX_PLY) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) return score - ply;
+        if (score <= -MATE + MAX_PLY) return score + ply;
+        return score;
+    }
+
+    public static void main(String[] args) {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1000;
+        ChessMatch match = args.length > 1
+                ? ChessMatch.fromFen(String.join(" ", Arrays.copyOfRange(args, 1, args.length)))
+                : new ChessMatch();
+        Search search = new Search(new TranspositionTable(64));
+        search.setListener(result -> System.out.println("info " + result));
+        SearchResult result = search.search(match, SearchLimits.millis(millis));
+        System.out.println("bestmove " + ChessMove.toString(result.getBestMove()));
+        System.out.println(search.getTable());
+    }
+}
@@ -0,0 +1,51 @@
+package chess.engine;
+
+// Budget of a search: it stops at whichever of depth, node count or time runs out first.
+public final class SearchLimits {
+
+    public static final int MAX_DEPTH = Search.MAX_PLY - 1;
+
+    private final int depth;
+    private final long nodes;
+    private final long millis;
+
+    public SearchLimits(int depth, long nodes, long millis) {
+        if (depth < 1 || depth > MAX_DEPTH) throw new IllegalArgumentException("Invalid search depth: " + depth);
+        if (nodes < 1) throw new IllegalArgumentException("Invalid node budget: " + nodes);
+        if (millis < 1) throw new IllegalArgumentException("Invalid time budget: " + millis + " ms");
+        this.depth = depth;
+        this.nodes = nodes;
+        this.millis = millis;
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(MAX_DEPTH, nodes, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, millis);
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getMillis() {
+        return millis;
+    }
+
+    @Override
+    public String toString() {
+        return "SearchLimits[depth " + depth
+                + (nodes == Long.MAX_VALUE ? "" : ", nodes " + nodes)
+                + (millis == Long.MAX_VALUE ? "" : ", " + millis + " ms") + "]";
+    }
+}
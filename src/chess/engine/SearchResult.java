@@ -0,0 +1,79 @@
+package chess.engine;
+
+import chess.ChessMove;
+
+import java.util.Arrays;
+
+// Outcome of the last completed iteration of a search. Moves are packed as in ChessMove.
+public final class SearchResult {
+
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long nanos;
+    private final int[] principalVariation;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes, long nanos, int[] principalVariation) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.nanos = nanos;
+        this.principalVariation = principalVariation.clone();
+    }
+
+    // 0 when the side to move has no legal move.
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    // Centipawns from the point of view of the side to move.
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return nanos / 1_000_000;
+    }
+
+    public long getNodesPerSecond() {
+        return nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+    }
+
+    public int[] getPrincipalVariation() {
+        return principalVariation.clone();
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE - Search.MAX_PLY;
+    }
+
+    // Moves until mate, negative when the side to move is the one getting mated.
+    public int getMateIn() {
+        if (!isMate()) return 0;
+        int plies = Search.MATE - Math.abs(score);
+        return score > 0 ? (plies + 1) / 2 : -(plies / 2);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("depth ").append(depth);
+        sb.append(isMate() ? " mate " + getMateIn() : " cp " + score);
+        sb.append(" nodes ").append(nodes);
+        sb.append(" nps ").append(getNodesPerSecond());
+        sb.append(" time ").append(getElapsedMillis());
+        sb.append(" pv");
+        Arrays.stream(principalVariation).forEach(move -> sb.append(' ').append(ChessMove.toString(move)));
+        return sb.toString();
+    }
+}
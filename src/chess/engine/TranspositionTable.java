@@ -0,0 +1,211 @@
+package chess.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-size hash table of search results keyed by ChessMatch.getPositionKey(), shared by any number of
+// threads without locks. Entries live in a flat long[] (two longs each, two entries per bucket) so even a
+// table of several gigabytes is a single object for the garbage collector. Every entry is stored as
+// (key ^ data, data): a torn write from a concurrent store makes the XOR check fail and reads as a miss.
+public class TranspositionTable {
+
+    public enum ReplacementPolicy {
+        // Always overwrite the first entry of the bucket.
+        ALWAYS,
+        // Keep the deeper of the two entries, overwrite the shallower one.
+        DEPTH_PREFERRED,
+        // Like DEPTH_PREFERRED, but entries left over from older searches are replaced first.
+        AGED
+    }
+
+    // Bound types are never zero, so data == 0 always means an empty slot.
+    public static final int EXACT = 1;
+    public static final int LOWER_BOUND = 2;
+    public static final int UPPER_BOUND = 3;
+
+    public static final int MAX_DEPTH = 255;
+
+    // data layout: move 0-23, score 24-39 (signed), depth 40-47, bound 48-49, generation 50-55
+    private static final int MOVE_BITS = 24;
+    private static final int SCORE_SHIFT = 24;
+    private static final int DEPTH_SHIFT = 40;
+    private static final int BOUND_SHIFT = 48;
+    private static final int GENERATION_SHIFT = 50;
+    private static final int GENERATION_MASK = 0x3F;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_LONGS = 4;
+
+    private final long[] table;
+    private final long bucketMask;
+    private final ReplacementPolicy policy;
+    private volatile int generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+
+    public TranspositionTable(long megabytes) {
+        this(megabytes, ReplacementPolicy.AGED);
+    }
+
+    // The number of buckets is rounded down to a power of two.
+    public TranspositionTable(long megabytes, ReplacementPolicy policy) {
+        if (megabytes < 1) throw new IllegalArgumentException("Invalid transposition table size: " + megabytes + " MB");
+        long buckets = Long.highestOneBit(megabytes * 1024 * 1024 / (ENTRY_BYTES * 2));
+        if (buckets * BUCKET_LONGS > Integer.MAX_VALUE - 8) buckets = (Integer.MAX_VALUE - 8) / BUCKET_LONGS;
+        buckets = Long.highestOneBit(buckets);
+        this.table = new long[(int) (buckets * BUCKET_LONGS)];
+        this.bucketMask = buckets - 1;
+        this.policy = policy;
+    }
+
+    public ReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    public int getCapacity() {
+        return table.length / 2;
+    }
+
+    public long getSizeInBytes() {
+        return (long) table.length * Long.BYTES;
+    }
+
+    // Returns the packed entry data for the position, or 0 when the table has nothing usable for it.
+    public long probe(long key) {
+        int bucket = bucket(key);
+        for (int i = bucket; i < bucket + BUCKET_LONGS; i += 2) {
+            long data = table[i + 1];
+            if (data == 0) continue;
+            if ((table[i] ^ data) == key) {
+                hits.increment();
+                return data;
+            }
+        }
+        if (table[bucket + 1] != 0 || table[bucket + 3] != 0) collisions.increment();
+        misses.increment();
+        return 0;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        if (bound < EXACT || bound > UPPER_BOUND) throw new IllegalArgumentException("Invalid bound type: " + bound);
+        int bucket = bucket(key);
+        int gen = generation;
+        long first = table[bucket + 1];
+        long second = table[bucket + 3];
+        int slot;
+        if (first != 0 && (table[bucket] ^ first) == key) {
+            slot = bucket;
+            // Keep the known best move when the new result did not find one.
+            if (move == 0) move = move(first);
+        } else if (second != 0 && (table[bucket + 2] ^ second) == key) {
+            slot = bucket + 2;
+            if (move == 0) move = move(second);
+        } else {
+            slot = switch (policy) {
+                case ALWAYS -> bucket;
+                case DEPTH_PREFERRED -> depth(first) <= depth(second) ? bucket : bucket + 2;
+                case AGED -> replacementValue(first, gen) <= replacementValue(second, gen) ? bucket : bucket + 2;
+            };
+        }
+        long data = pack(move, score, depth, bound, gen);
+        table[slot] = key ^ data;
+        table[slot + 1] = data;
+        stores.increment();
+    }
+
+    // Marks the start of a new search so that AGED replacement can prefer entries from earlier ones.
+    public void newSearch() {
+        generation = (generation + 1) & GENERATION_MASK;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0);
+        generation = 0;
+    }
+
+    // Permille of the first thousand entries written during the current search, as reported by UCI engines.
+    public int hashfull() {
+        int sample = Math.min(1000, getCapacity());
+        int used = 0;
+        for (int i = 0; i < sample; i++) {
+            long data = table[2 * i + 1];
+            if (data != 0 && generation(data) == generation) used++;
+        }
+        return used * 1000 / sample;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // Misses where the bucket was occupied by other positions.
+    public long getCollisions() {
+        return collisions.sum();
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    public void resetStatistics() {
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+        stores.reset();
+    }
+
+    @Override
+    public String toString() {
+        long probes = getHits() + getMisses();
+        return String.format("TranspositionTable[%,d entries, %s, hits %,d, misses %,d, collisions %,d, stores %,d, hit rate %.1f%%]",
+                getCapacity(), policy, getHits(), getMisses(), getCollisions(), getStores(),
+                probes == 0 ? 0.0 : 100.0 * getHits() / probes);
+    }
+
+    public static int move(long data) {
+        return (int) (data & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int score(long data) {
+        return (short) (data >>> SCORE_SHIFT);
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long data) {
+        return (int) (data >>> BOUND_SHIFT) & 3;
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT) & GENERATION_MASK;
+    }
+
+    private static long pack(int move, int score, int depth, int bound, int generation) {
+        if (score < Short.MIN_VALUE || score > Short.MAX_VALUE) throw new IllegalArgumentException("Score out of range: " + score);
+        return (move & ((1L << MOVE_BITS) - 1))
+                | (long) (score & 0xFFFF) << SCORE_SHIFT
+                | (long) Math.max(0, Math.min(depth, MAX_DEPTH)) << DEPTH_SHIFT
+                | (long) bound << BOUND_SHIFT
+                | (long) generation << GENERATION_SHIFT;
+    }
+
+    // Empty slots go first, then entries from older searches, then the shallowest.
+    private static int replacementValue(long data, int generation) {
+        if (data == 0) return -1;
+        int age = (generation - generation(data)) & GENERATION_MASK;
+        return depth(data) - 8 * age;
+    }
+
+    private int bucket(long key) {
+        return (int) ((key ^ (key >>> 32)) & bucketMask) * BUCKET_LONGS;
+    }
+}
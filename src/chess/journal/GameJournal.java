@@ -0,0 +1,261 @@
+package chess.journal;
+
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.Color;
+import chess.MoveListener;
+import chess.PositionSnapshot;
+import chess.exceptions.ChessException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Append-only record of many games in one memory-mapped file. Appending a move is a reservation on an
+// AtomicLong and a few stores into the mapping, no system call; the operating system writes the pages
+// back, so the journal survives the process dying (force() also covers the machine going down).
+//
+// Every record is 16 bytes: payload (long), game id (int), then a header int (kind << 24 | index) that is
+// never zero and is written with a release store after the rest, so a record whose header is in the file
+// has its payload and game id there too when the process dies; an unfinished one reads as a hole and is
+// skipped. A machine going down between force() calls may lose or tear any page not yet written back.
+//   START      index 0, payload: side to move, castling rights, en passant square, halfmove clock, turn
+//   SQUARES    index 0-3, payload: PositionSnapshot.getPackedSquares()[index]
+//   MOVE       index = ply, payload: the move packed as in ChessMove
+//   PROMOTION  index = ply of the last move, payload: that move with the promotion chosen afterwards
+//   END        the game is over and won't be resumed
+//   UNDO       index = ply of the move taken back with undoMove; a redo is a MOVE record again
+public class GameJournal implements AutoCloseable {
+
+    public static final int RECORD_SIZE = 16;
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+
+    static final int START = 1;
+    static final int SQUARES = 2;
+    static final int MOVE = 3;
+    static final int PROMOTION = 4;
+    static final int END = 5;
+    static final int UNDO = 6;
+
+    // Ints of a mapping as the big-endian getInt reads them; records are 16-byte aligned, so the header is an
+    // aligned int and the view allows ordered access to it.
+    private static final VarHandle HEADER = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final int segmentSize;
+    private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    private final AtomicLong end;
+    private final AtomicInteger nextGameId;
+
+    public GameJournal(Path file) throws IOException {
+        this(file, DEFAULT_SEGMENT_SIZE);
+    }
+
+    // Opens or creates the journal; new records go after the last one already in the file.
+    public GameJournal(Path file, int segmentSize) throws IOException {
+        if (segmentSize <= 0 || segmentSize % RECORD_SIZE != 0)
+            throw new IllegalArgumentException("Segment size must be a positive multiple of " + RECORD_SIZE);
+        this.segmentSize = segmentSize;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long[] used = new long[1];
+        int[] maxGameId = new int[1];
+        scan(channel, (offset, gameId, kind, index, payload) -> {
+            used[0] = offset + RECORD_SIZE;
+            maxGameId[0] = Math.max(maxGameId[0], gameId);
+        });
+        this.end = new AtomicLong(used[0]);
+        this.nextGameId = new AtomicInteger(maxGameId[0] + 1);
+    }
+
+    private interface RecordVisitor {
+        void visit(long offset, int gameId, int kind, int index, long payload);
+    }
+
+    // Reads the file through read-only mappings, so scanning never grows it, skipping holes.
+    private static void scan(FileChannel channel, RecordVisitor visitor) throws IOException {
+        long size = channel.size() / RECORD_SIZE * RECORD_SIZE;
+        for (long start = 0; start < size; start += DEFAULT_SEGMENT_SIZE) {
+            int length = (int) Math.min(DEFAULT_SEGMENT_SIZE, size - start);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            for (int position = 0; position < length; position += RECORD_SIZE) {
+                int header = buffer.getInt(position + 12);
+                if (header == 0) continue;
+                visitor.visit(start + position, buffer.getInt(position + 8), header >>> 24, header & 0xFFFFFF,
+                        buffer.getLong(position));
+            }
+        }
+    }
+
+    // Starts journaling the match under a new game id: its initial position and the moves made so far are
+    // written now, later moves as they are performed. A match resumed from replay can be attached again.
+    public int attach(ChessMatch match) {
+        int gameId = nextGameId.getAndIncrement();
+        PositionSnapshot start = match.getInitialPosition();
+        long state = (start.getCurrentPlayer() == Color.BLACK ? 1L : 0L)
+                | (long) start.getCastlingRights() << 1
+                | (long) (start.getEnPassantSquare() + 1) << 5
+                | (long) start.getHalfMoveClock() << 12
+                | (long) start.getTurn() << 32;
+        append(gameId, START, 0, state);
+        long[] squares = start.getPackedSquares();
+        for (int i = 0; i < squares.length; i++) append(gameId, SQUARES, i, squares[i]);
+        int[] history = match.getMoveHistory();
+        for (int ply = 0; ply < history.length; ply++) append(gameId, MOVE, ply, history[ply]);
+        match.setMoveListener(new Recorder(gameId, history.length));
+        return gameId;
+    }
+
+    public void finish(int gameId) {
+        append(gameId, END, 0, 0);
+    }
+
+    // Bytes of the file holding records.
+    public long size() {
+        return end.get();
+    }
+
+    // Blocks until everything appended so far is on disk.
+    public void force() {
+        for (MappedByteBuffer segment : segments) segment.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    private void append(int gameId, int kind, int index, long payload) {
+        long offset = end.getAndAdd(RECORD_SIZE);
+        try {
+            MappedByteBuffer segment = segment(offset);
+            int position = (int) (offset % segmentSize);
+            segment.putLong(position, payload);
+            segment.putInt(position + 8, gameId);
+            HEADER.setRelease(segment, position + 12, kind << 24 | index);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not extend the journal", e);
+        }
+    }
+
+    private MappedByteBuffer segment(long offset) throws IOException {
+        int index = (int) (offset / segmentSize);
+        MappedByteBuffer[] current = segments;
+        if (index < current.length) return current[index];
+        synchronized (this) {
+            current = segments;
+            if (index >= current.length) {
+                current = Arrays.copyOf(current, index + 1);
+                for (int i = segments.length; i <= index; i++)
+                    current[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+                segments = current;
+            }
+            return current[index];
+        }
+    }
+
+    private final class Recorder implements MoveListener {
+
+        private final int gameId;
+        private int ply;
+
+        private Recorder(int gameId, int ply) {
+            this.gameId = gameId;
+            this.ply = ply;
+        }
+
+        @Override
+        public void movePerformed(ChessMatch match, int move) {
+            append(gameId, MOVE, ply++, move);
+        }
+
+        @Override
+        public void promotionReplaced(ChessMatch match, int move) {
+            append(gameId, PROMOTION, ply - 1, move);
+        }
+
+        @Override
+        public void moveUndone(ChessMatch match) {
+            append(gameId, UNDO, --ply, 0);
+        }
+    }
+
+    // Rebuilds every game of the journal that has no END record, replaying its moves through
+    // performChessMove and replacePromotedPiece. A game whose records stop making sense (a hole left by a
+    // crash, an illegal move) is kept up to its last good move.
+    public static Map<Integer, ChessMatch> replay(Path file) throws IOException {
+        Map<Integer, GameBuilder> games = new LinkedHashMap<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            scan(channel, (offset, gameId, kind, index, payload) ->
+                    games.computeIfAbsent(gameId, id -> new GameBuilder()).add(kind, index, payload));
+        }
+        Map<Integer, ChessMatch> matches = new LinkedHashMap<>();
+        games.forEach((gameId, game) -> {
+            if (!game.finished && game.match != null) matches.put(gameId, game.match);
+        });
+        return matches;
+    }
+
+    private static final class GameBuilder {
+
+        private static final String PROMOTION_TYPES = "  NBRQ";
+
+        private final Map<Integer, Long> startRecords = new HashMap<>();
+        private ChessMatch match;
+        private int ply;
+        private boolean broken;
+        private boolean finished;
+
+        void add(int kind, int index, long payload) {
+            if (broken) return;
+            try {
+                switch (kind) {
+                    case START, SQUARES -> {
+                        startRecords.put(kind == START ? -1 : index, payload);
+                        if (startRecords.size() == 5) match = start();
+                    }
+                    case MOVE -> {
+                        if (match == null || index != ply) throw new ChessException("Missing records before ply " + index);
+                        match.performChessMove((int) payload);
+                        ply++;
+                    }
+                    case PROMOTION -> {
+                        if (match == null || index != ply - 1) throw new ChessException("Promotion out of place");
+                        match.replacePromotedPiece(String.valueOf(PROMOTION_TYPES.charAt(ChessMove.promotionType((int) payload))));
+                    }
+                    case UNDO -> {
+                        if (match == null || index != ply - 1) throw new ChessException("Undo out of place");
+                        match.undoMove();
+                        ply--;
+                    }
+                    case END -> finished = true;
+                    default -> throw new ChessException("Unknown journal record kind " + kind);
+                }
+            } catch (RuntimeException e) {
+                broken = true;
+            }
+        }
+
+        private ChessMatch start() {
+            long state = startRecords.get(-1);
+            long[] squares = new long[4];
+            for (int i = 0; i < squares.length; i++) squares[i] = startRecords.get(i);
+            PositionSnapshot snapshot = PositionSnapshot.of(squares, (state & 1) == 0 ? Color.WHITE : Color.BLACK,
+                    (int) (state >>> 32), (int) (state >>> 1) & 15, (int) ((state >>> 5) & 127) - 1,
+                    (int) (state >>> 12) & 0xFFFF);
+            return ChessMatch.fromSnapshot(snapshot);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package chess.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latencies in nanoseconds counted in log-linear buckets, as HdrHistogram does: exact below 64 ns, then 32
+// buckets per power of two, so a percentile read back is within 1/32 (about 3%) of the true value. Up to
+// MAX_VALUE (about 68 s); longer ones count as MAX_VALUE.
+//
+// Threads record into one of several stripes picked by thread id, each a separate array, so threads of a
+// server playing many matches at once rarely increment the same word; snapshot() adds the stripes up.
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 6;
+    static final int LINEAR_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int HALF = LINEAR_BUCKETS / 2;
+    public static final long MAX_VALUE = (1L << 36) - 1;
+    static final int BUCKETS = bucket(MAX_VALUE) + 1;
+
+    // Each stripe keeps its bucket counts followed by the total and the maximum.
+    private static final int TOTAL = BUCKETS;
+    private static final int MAX = BUCKETS + 1;
+    private static final int STRIPES = Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1));
+
+    private final String name;
+    private final AtomicLongArray[] stripes = new AtomicLongArray[STRIPES];
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new AtomicLongArray(BUCKETS + 2);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        AtomicLongArray stripe = stripes[(int) Thread.currentThread().getId() & (STRIPES - 1)];
+        stripe.getAndIncrement(bucket(value));
+        stripe.getAndAdd(TOTAL, value);
+        long max = stripe.get(MAX);
+        while (value > max && !stripe.compareAndSet(MAX, max, value)) max = stripe.get(MAX);
+    }
+
+    // Records the time since start, a System.nanoTime() reading.
+    public void recordSince(long start) {
+        record(System.nanoTime() - start);
+    }
+
+    // Counts so far. Recording goes on meanwhile, so a busy histogram may show a few more or fewer counts
+    // than an instant's worth, never a torn one.
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) counts[i] += stripe.get(i);
+            total += stripe.get(TOTAL);
+            max = Math.max(max, stripe.get(MAX));
+        }
+        return new LatencySnapshot(name, counts, total, max);
+    }
+
+    public void reset() {
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < stripe.length(); i++) stripe.set(i, 0);
+        }
+    }
+
+    // Values below LINEAR_BUCKETS have a bucket each; above, value >>> shift keeps the top SUB_BUCKET_BITS - 1
+    // bits after the leading one, which are the bucket within its power of two.
+    static int bucket(long value) {
+        if (value < LINEAR_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+        return HALF * (shift + 1) + (int) (value >>> shift) - HALF;
+    }
+
+    // Largest value that falls in the bucket.
+    static long highestValue(int bucket) {
+        if (bucket < LINEAR_BUCKETS) return bucket;
+        int shift = bucket / HALF - 1;
+        long sub = HALF + bucket % HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,73 @@
+package chess.metrics;
+
+// Counts of a LatencyHistogram at one point, all times in nanoseconds.
+public final class LatencySnapshot {
+
+    private final String name;
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    LatencySnapshot(String name, long[] counts, long totalNanos, long maxNanos) {
+        this.name = name;
+        this.counts = counts;
+        long count = 0;
+        for (long c : counts) count += c;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    // Smallest latency that at least the fraction (0 to 1) of the recorded ones do not exceed, rounded up to
+    // the end of its bucket; 0 when nothing was recorded.
+    public long getPercentile(double fraction) {
+        if (fraction < 0 || fraction > 1) throw new IllegalArgumentException("Not a fraction: " + fraction);
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < counts.length; bucket++) {
+            seen += counts[bucket];
+            if (seen >= rank) return Math.min(LatencyHistogram.highestValue(bucket), maxNanos);
+        }
+        return maxNanos;
+    }
+
+    public long getP50Nanos() {
+        return getPercentile(0.5);
+    }
+
+    public long getP99Nanos() {
+        return getPercentile(0.99);
+    }
+
+    public long getP999Nanos() {
+        return getPercentile(0.999);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-24s %,12d calls, mean %,10.1f ns, p50 %,9d ns, p99 %,9d ns, p999 %,9d ns, max %,11d ns",
+                name, count, getMeanNanos(), getP50Nanos(), getP99Nanos(), getP999Nanos(), maxNanos);
+    }
+}
@@ -0,0 +1,148 @@
+package chess.metrics;
+
+import boardgame.Move;
+import chess.ChessMatch;
+import chess.ChessPosition;
+import chess.PieceCode;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Latency histograms of the ChessMatch hot paths: performChessMove, testCheck (timed at isInCheck, the public
+// check test), testCheckMate (timed at the check and mate update every move ends with) and possibleMoves() per
+// piece type. Off unless the JVM runs with -Dchess.metrics=true: every call site reads the time only under
+// "if (Metrics.ENABLED)", and as ENABLED is a static final the JIT drops those branches when it is false, so a
+// disabled build runs the same code as an uninstrumented one. When enabled, every histogram is registered as an
+// MXBean (see OperationMetricsMXBean) the first time the class is used.
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+    public static final LatencyHistogram PERFORM_CHESS_MOVE = new LatencyHistogram("performChessMove");
+    public static final LatencyHistogram TEST_CHECK = new LatencyHistogram("testCheck");
+    public static final LatencyHistogram TEST_CHECK_MATE = new LatencyHistogram("testCheckMate");
+    // Indexed by PieceCode type.
+    private static final LatencyHistogram[] POSSIBLE_MOVES = new LatencyHistogram[PieceCode.KING + 1];
+    private static final String[] TYPE_NAMES = {"", "pawn", "knight", "bishop", "rook", "queen", "king"};
+
+    static {
+        for (int type = PieceCode.PAWN; type <= PieceCode.KING; type++)
+            POSSIBLE_MOVES[type] = new LatencyHistogram("possibleMoves." + TYPE_NAMES[type]);
+        if (ENABLED) registerMBeans();
+    }
+
+    private Metrics() {
+    }
+
+    public static LatencyHistogram possibleMoves(int type) {
+        return POSSIBLE_MOVES[type];
+    }
+
+    public static List<LatencyHistogram> histograms() {
+        List<LatencyHistogram> histograms = new ArrayList<>(List.of(PERFORM_CHESS_MOVE, TEST_CHECK, TEST_CHECK_MATE));
+        for (int type = PieceCode.PAWN; type <= PieceCode.KING; type++) histograms.add(POSSIBLE_MOVES[type]);
+        return histograms;
+    }
+
+    // Every histogram, in the order of histograms(); all zero when metrics are disabled.
+    public static List<LatencySnapshot> snapshot() {
+        List<LatencySnapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram histogram : histograms()) snapshots.add(histogram.snapshot());
+        return snapshots;
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : histograms()) histogram.reset();
+    }
+
+    // Registers the histograms with the platform MBeanServer, skipping those already there.
+    public static synchronized void registerMBeans() {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (LatencyHistogram histogram : histograms()) {
+                ObjectName name = new ObjectName("chess:type=Metrics,name=" + histogram.getName());
+                if (!server.isRegistered(name)) server.registerMBean(new OperationMetrics(histogram), name);
+            }
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register the metrics MBeans", e);
+        }
+    }
+
+    private static final class OperationMetrics implements OperationMetricsMXBean {
+
+        private final LatencyHistogram histogram;
+
+        private OperationMetrics(LatencyHistogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public long getCount() {
+            return histogram.snapshot().getCount();
+        }
+
+        @Override
+        public long getTotalNanos() {
+            return histogram.snapshot().getTotalNanos();
+        }
+
+        @Override
+        public double getMeanNanos() {
+            return histogram.snapshot().getMeanNanos();
+        }
+
+        @Override
+        public long getP50Nanos() {
+            return histogram.snapshot().getP50Nanos();
+        }
+
+        @Override
+        public long getP99Nanos() {
+            return histogram.snapshot().getP99Nanos();
+        }
+
+        @Override
+        public long getP999Nanos() {
+            return histogram.snapshot().getP999Nanos();
+        }
+
+        @Override
+        public long getMaxNanos() {
+            return histogram.snapshot().getMaxNanos();
+        }
+
+        @Override
+        public void reset() {
+            histogram.reset();
+        }
+    }
+
+    // Plays random games through the instrumented calls and prints the histograms:
+    //   java -Dchess.metrics=true chess.metrics.Metrics [games]
+    public static void main(String[] args) {
+        if (!ENABLED) {
+            System.err.println("Metrics are disabled; run with -Dchess.metrics=true");
+            System.exit(2);
+        }
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        SplittableRandom random = new SplittableRandom(1);
+        int[] moves = new int[ChessMatch.MAX_MOVES];
+        for (int game = 0; game < games; game++) {
+            ChessMatch match = new ChessMatch();
+            for (int ply = 0; ply < 200 && !match.isCheckMate() && !match.isDraw(); ply++) {
+                int count = match.generateLegalMoves(moves, 0);
+                int move = moves[random.nextInt(count)];
+                int from = Move.from(move);
+                match.possibleMoves(new ChessPosition((char) ('a' + from % 8), 8 - from / 8));
+                match.performChessMove(move);
+                match.isInCheck();
+            }
+        }
+        for (LatencySnapshot snapshot : snapshot()) System.out.println(snapshot);
+    }
+}
@@ -0,0 +1,22 @@
+package chess.metrics;
+
+// One instrumented operation as JMX sees it, registered as chess:type=Metrics,name=<operation>; every
+// attribute is read from a fresh snapshot.
+public interface OperationMetricsMXBean {
+
+    long getCount();
+
+    long getTotalNanos();
+
+    double getMeanNanos();
+
+    long getP50Nanos();
+
+    long getP99Nanos();
+
+    long getP999Nanos();
+
+    long getMaxNanos();
+
+    void reset();
+}
@@ -0,0 +1,105 @@
+package chess.perft;
+
+import chess.ChessMatch;
+import chess.ChessMove;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+// Counts the leaf nodes of the legal move tree, walking it with ChessMatch.makeMove/unmakeMove.
+public class Perft {
+
+    private final ChessMatch match;
+    private final int[][] moves;
+
+    public Perft(ChessMatch match, int maxDepth) {
+        this.match = match;
+        this.moves = new int[Math.max(maxDepth, 1)][ChessMatch.MAX_MOVES];
+    }
+
+    public long count(int depth) {
+        if (depth < 0 || depth > moves.length) throw new IllegalArgumentException("Invalid perft depth: " + depth);
+        return depth == 0 ? 1 : count(depth, 0);
+    }
+
+    private long count(int depth, int ply) {
+        int[] buffer = moves[ply];
+        int count = match.generateLegalMoves(buffer, 0);
+        if (depth == 1) return count;
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            match.makeMove(buffer[i]);
+            nodes += count(depth - 1, ply + 1);
+            match.unmakeMove();
+        }
+        return nodes;
+    }
+
+    // Prints the node count below every root move, the usual way to bisect a move generator bug.
+    public long divide(int depth, PrintStream out) {
+        if (depth < 1 || depth > moves.length) throw new IllegalArgumentException("Invalid perft depth: " + depth);
+        int[] buffer = moves[0];
+        int count = match.generateLegalMoves(buffer, 0);
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            match.makeMove(buffer[i]);
+            long nodes = depth == 1 ? 1 : count(depth - 1, 1);
+            match.unmakeMove();
+            out.println(ChessMove.toString(buffer[i]) + ": " + nodes);
+            total += nodes;
+        }
+        out.println();
+        out.println("Moves: " + count);
+        out.println("Nodes: " + total);
+        return total;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || args[0].equals("suite")) {
+            long maxNodes = args.length > 1 ? Long.parseLong(args[1]) : 5_000_000L;
+            System.exit(runSuite(maxNodes, System.out) ? 0 : 1);
+        }
+        if (args.length < 2 || !(args[0].equals("perft") || args[0].equals("divide"))) {
+            System.out.println("Usage: Perft [suite [maxNodes]] | perft <depth> [fen] | divide <depth> [fen]");
+            System.exit(2);
+        }
+        int depth = Integer.parseInt(args[1]);
+        String fen = args.length > 2
+                ? String.join(" ", Arrays.copyOfRange(args, 2, args.length))
+                : PerftPosition.INITIAL.getFen();
+        Perft perft = new Perft(ChessMatch.fromFen(fen), depth);
+        long start = System.nanoTime();
+        long nodes = args[0].equals("divide") ? perft.divide(depth, System.out) : perft.count(depth);
+        long elapsed = System.nanoTime() - start;
+        System.out.println("perft(" + depth + ") = " + nodes + report(nodes, elapsed));
+    }
+
+    // Runs every reference position up to the deepest depth whose expected count fits in maxNodes.
+    public static boolean runSuite(long maxNodes, PrintStream out) {
+        boolean ok = true;
+        long totalNodes = 0;
+        long totalTime = 0;
+        for (PerftPosition position : PerftPosition.values()) {
+            for (int depth = 1; depth <= position.getMaxDepth() && position.expected(depth) <= maxNodes; depth++) {
+                Perft perft = new Perft(ChessMatch.fromFen(position.getFen()), depth);
+                long start = System.nanoTime();
+                long nodes = perft.count(depth);
+                long elapsed = System.nanoTime() - start;
+                boolean passed = nodes == position.expected(depth);
+                ok &= passed;
+                totalNodes += nodes;
+                totalTime += elapsed;
+                out.printf("%-10s depth %d: %,d nodes (expected %,d)%s %s%n", position, depth, nodes,
+                        position.expected(depth), report(nodes, elapsed), passed ? "OK" : "FAIL");
+            }
+        }
+        out.println("Total: " + String.format("%,d", totalNodes) + " nodes" + report(totalNodes, totalTime)
+                + (ok ? " - all passed" : " - FAILURES"));
+        return ok;
+    }
+
+    private static String report(long nodes, long nanos) {
+        long nps = nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos;
+        return String.format(" in %,d ms, %,d nodes/s", nanos / 1_000_000, nps);
+    }
+}
@@ -0,0 +1,55 @@
+package chess.pgn;
+
+import chess.ChessMatch;
+import chess.exceptions.ChessException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+// One game as read from PGN: its tag pairs, the SAN of its main line and the result token. Comments,
+// variations and annotation glyphs are not kept.
+public final class PgnGame {
+
+    private final Map<String, String> tags;
+    private final List<String> moves;
+    private final String result;
+
+    PgnGame(Map<String, String> tags, List<String> moves, String result) {
+        this.tags = Collections.unmodifiableMap(tags);
+        this.moves = Collections.unmodifiableList(moves);
+        this.result = result;
+    }
+
+    public Map<String, String> getTags() {
+        return tags;
+    }
+
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    public List<String> getMoves() {
+        return moves;
+    }
+
+    // "1-0", "0-1", "1/2-1/2" or "*"; the Result tag when the movetext ended without one.
+    public String getResult() {
+        return result != null ? result : tags.getOrDefault("Result", "*");
+    }
+
+    // Plays the game through performChessMove from the FEN tag position, or the initial setup.
+    public ChessMatch replay() {
+        String fen = tags.get("FEN");
+        ChessMatch match = fen == null ? new ChessMatch() : ChessMatch.fromFen(fen);
+        int[] buffer = new int[ChessMatch.MAX_MOVES];
+        for (int i = 0; i < moves.size(); i++) {
+            try {
+                match.performChessMove(San.parse(match, moves.get(i), buffer));
+            } catch (ChessException e) {
+                throw new ChessException("Ply " + (i + 1) + " (" + moves.get(i) + "): " + e.getMessage());
+            }
+        }
+        return match;
+    }
+}
@@ -0,0 +1,179 @@
+package chess.pgn;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Reads PGN one game at a time through a fixed buffer refilled from the channel, so memory stays the
+// same for a file of any size. Comments, variations, annotation glyphs and % escape lines are skipped
+// without being stored; tag values are decoded as UTF-8.
+public class PgnReader implements AutoCloseable {
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    private static final String DELIMITERS = "{}()[];";
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private final StringBuilder text = new StringBuilder(64);
+    private int unread = -1;
+    private int last = '\n';
+    private boolean lineStart = true;
+    private long bytes;
+
+    public PgnReader(ReadableByteChannel channel) {
+        this(channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    public PgnReader(ReadableByteChannel channel, int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive");
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(chunkSize);
+        buffer.flip();
+    }
+
+    public static PgnReader open(Path file) throws IOException {
+        return new PgnReader(FileChannel.open(file, StandardOpenOption.READ));
+    }
+
+    // The next game of the input, or null when there is none left.
+    public PgnGame next() throws IOException {
+        Map<String, String> tags = new LinkedHashMap<>();
+        List<String> moves = new ArrayList<>();
+        boolean started = false;
+        int depth = 0;
+        int c;
+        while ((c = read()) >= 0) {
+            switch (c) {
+                case ' ', '\t', '\r', '\n', '\f' -> {
+                }
+                case '{' -> skipUntil('}');
+                case ';' -> skipUntil('\n');
+                case '(' -> depth++;
+                case ')' -> depth = Math.max(0, depth - 1);
+                case '[' -> {
+                    // A game whose movetext ended without a result token.
+                    if (!moves.isEmpty()) {
+                        unread = c;
+                        return new PgnGame(tags, moves, null);
+                    }
+                    readTag(tags);
+                    started = true;
+                }
+                default -> {
+                    if (c == '%' && lineStart) {
+                        skipUntil('\n');
+                        continue;
+                    }
+                    String token = readToken(c);
+                    if (depth > 0 || c == '$') continue;
+                    if (isResult(token)) return new PgnGame(tags, moves, token);
+                    String move = stripMoveNumber(token);
+                    if (!move.isEmpty()) moves.add(move);
+                }
+            }
+        }
+        return started || !moves.isEmpty() ? new PgnGame(tags, moves, null) : null;
+    }
+
+    // Bytes consumed from the channel so far.
+    public long getBytesRead() {
+        return bytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int read() throws IOException {
+        if (unread >= 0) {
+            int c = unread;
+            unread = -1;
+            return c;
+        }
+        if (!buffer.hasRemaining()) {
+            buffer.clear();
+            int count;
+            do {
+                count = channel.read(buffer);
+            } while (count == 0);
+            buffer.flip();
+            if (count < 0) return -1;
+            bytes += count;
+        }
+        int c = buffer.get() & 0xFF;
+        lineStart = last == '\n';
+        last = c;
+        return c;
+    }
+
+    private void skipUntil(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c >= 0 && c != end);
+    }
+
+    private String readToken(int first) throws IOException {
+        text.setLength(0);
+        text.append((char) first);
+        int c;
+        while ((c = read()) >= 0) {
+            if (c <= ' ' || DELIMITERS.indexOf(c) >= 0) {
+                unread = c;
+                break;
+            }
+            text.append((char) c);
+        }
+        return text.toString();
+    }
+
+    // [Name "value"], with \" and \\ escapes in the value.
+    private void readTag(Map<String, String> tags) throws IOException {
+        text.setLength(0);
+        int c;
+        while ((c = read()) >= 0 && c <= ' ') {
+        }
+        while (c >= 0 && c > ' ' && c != '"' && c != ']') {
+            text.append((char) c);
+            c = read();
+        }
+        String name = text.toString();
+        while (c >= 0 && c != '"' && c != ']') c = read();
+        text.setLength(0);
+        if (c == '"') {
+            while ((c = read()) >= 0 && c != '"') {
+                if (c == '\\') c = read();
+                if (c >= 0) text.append((char) c);
+            }
+            c = read();
+        }
+        while (c >= 0 && c != ']') c = read();
+        String value = new String(text.toString().getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+        if (!name.isEmpty()) tags.put(name, value);
+    }
+
+    private static boolean isResult(String token) {
+        return token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token.equals("*");
+    }
+
+    // "12.", "12..." and "12.e4" all carry a move number in front of the move, if any.
+    private static String stripMoveNumber(String token) {
+        int i = 0;
+        while (i < token.length() && Character.isDigit(token.charAt(i))) i++;
+        if (i == token.length()) return "";
+        // Castling written with zeros.
+        if (token.charAt(i) != '.') return token;
+        while (i < token.length() && token.charAt(i) == '.') i++;
+        return token.substring(i);
+    }
+}
@@ -0,0 +1,164 @@
+package chess.pgn;
+
+import chess.ChessMatch;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+// Replays every game of a PGN file through the rules. With more than one thread the calling thread only
+// reads, handing batches of games to workers through a bounded queue, so memory stays bounded however far
+// the reader gets ahead. Usage: PgnReplay <file.pgn> [threads]
+public class PgnReplay {
+
+    static final int BATCH_SIZE = 64;
+    static final int MAX_ERRORS = 10;
+
+    private static final Batch END = new Batch(0, List.of());
+
+    private PgnReplay() {
+    }
+
+    public static final class Stats {
+
+        private final LongAdder games = new LongAdder();
+        private final LongAdder plies = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+        private long bytes;
+        private long elapsedNanos;
+
+        public long getGames() {
+            return games.sum();
+        }
+
+        public long getPlies() {
+            return plies.sum();
+        }
+
+        public long getFailed() {
+            return failed.sum();
+        }
+
+        // The first few failures, as "game N: reason".
+        public List<String> getErrors() {
+            return errors;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedNanos / 1_000_000;
+        }
+
+        public long getGamesPerSecond() {
+            return getGames() * 1_000_000_000L / Math.max(1, elapsedNanos);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d games, %,d plies, %,d failed, %,d MB in %,d ms (%,d games/s, %,d plies/s)",
+                    getGames(), getPlies(), getFailed(), bytes >> 20, getElapsedMillis(), getGamesPerSecond(),
+                    getPlies() * 1_000_000_000L / Math.max(1, elapsedNanos));
+        }
+
+        private void replay(long number, PgnGame game, BiConsumer<PgnGame, ChessMatch> consumer) {
+            games.increment();
+            try {
+                ChessMatch match = game.replay();
+                plies.add(game.getMoves().size());
+                if (consumer != null) consumer.accept(game, match);
+            } catch (RuntimeException e) {
+                failed.increment();
+                if (errors.size() < MAX_ERRORS) errors.add("game " + number + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // consumer, when given, is called with each game that replayed without errors and its final position,
+    // from the worker threads.
+    public static Stats replay(Path file, int threads, BiConsumer<PgnGame, ChessMatch> consumer)
+            throws IOException, InterruptedException {
+        if (threads < 1) throw new IllegalArgumentException("At least one thread is needed");
+        Stats stats = new Stats();
+        long start = System.nanoTime();
+        try (PgnReader reader = PgnReader.open(file)) {
+            if (threads == 1) {
+                long number = 0;
+                PgnGame game;
+                while ((game = reader.next()) != null) stats.replay(++number, game, consumer);
+            } else {
+                readInParallel(reader, threads, stats, consumer);
+            }
+            stats.bytes = reader.getBytesRead();
+        }
+        stats.elapsedNanos = System.nanoTime() - start;
+        return stats;
+    }
+
+    private static void readInParallel(PgnReader reader, int threads, Stats stats,
+                                       BiConsumer<PgnGame, ChessMatch> consumer) throws IOException, InterruptedException {
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(threads * 4);
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    Batch batch;
+                    while ((batch = queue.take()) != END) {
+                        long number = batch.first;
+                        for (PgnGame game : batch.games) stats.replay(number++, game, consumer);
+                    }
+                    queue.put(END);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "pgn-replay-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        try {
+            long number = 1;
+            List<PgnGame> games = new ArrayList<>(BATCH_SIZE);
+            PgnGame game;
+            while ((game = reader.next()) != null) {
+                games.add(game);
+                if (games.size() == BATCH_SIZE) {
+                    queue.put(new Batch(number, games));
+                    number += games.size();
+                    games = new ArrayList<>(BATCH_SIZE);
+                }
+            }
+            if (!games.isEmpty()) queue.put(new Batch(number, games));
+        } finally {
+            queue.put(END);
+            for (Thread worker : workers) worker.join();
+        }
+    }
+
+    // Games numbered from first, so errors can name them.
+    private static final class Batch {
+
+        private final long first;
+        private final List<PgnGame> games;
+
+        private Batch(long first, List<PgnGame> games) {
+            this.first = first;
+            this.games = games;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: PgnReplay <file.pgn> [threads]");
+            System.exit(2);
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Stats stats = replay(Path.of(args[0]), threads, null);
+        System.out.println(stats);
+        for (String error : stats.getErrors()) System.out.println(error);
+    }
+}
@@ -0,0 +1,82 @@
+package chess.pgn;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PositionSnapshot;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Writes matches as PGN: the seven tag roster (with "?" for anything not given), SetUp and FEN when the game
+// does not start from the initial setup, the other tags, and the moves of getMoveHistory() in SAN with lines
+// kept under 80 characters.
+public class PgnWriter {
+
+    private static final String[] ROSTER = {"Event", "Site", "Date", "Round", "White", "Black", "Result"};
+    private static final int LINE_LENGTH = 79;
+    private static final PositionSnapshot STANDARD_START = new ChessMatch().getInitialPosition();
+
+    private final Appendable out;
+    private final StringBuilder line = new StringBuilder(96);
+
+    public PgnWriter(Appendable out) {
+        this.out = out;
+    }
+
+    public void write(ChessMatch match, Map<String, String> tags) throws IOException {
+        PositionSnapshot start = match.getInitialPosition();
+        ChessMatch replay = start.toMatch();
+        int[] history = match.getMoveHistory();
+        int[] buffer = new int[ChessMatch.MAX_MOVES];
+        String[] sans = new String[history.length];
+        for (int i = 0; i < history.length; i++) {
+            sans[i] = San.format(replay, history[i], buffer);
+            replay.makeMove(history[i]);
+        }
+        String result = tags.getOrDefault("Result", result(match, replay, buffer));
+
+        Map<String, String> all = new LinkedHashMap<>();
+        for (String name : ROSTER) all.put(name, tags.getOrDefault(name, name.equals("Date") ? "????.??.??" : "?"));
+        all.put("Result", result);
+        if (!start.equals(STANDARD_START)) {
+            all.put("SetUp", "1");
+            all.put("FEN", start.toFen());
+        }
+        tags.forEach(all::putIfAbsent);
+        for (Map.Entry<String, String> tag : all.entrySet()) {
+            out.append('[').append(tag.getKey()).append(" \"")
+                    .append(tag.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"]\n");
+        }
+        out.append('\n');
+
+        line.setLength(0);
+        int turn = start.getTurn();
+        for (int i = 0; i < sans.length; i++, turn++) {
+            if (turn % 2 == 1) word((turn + 1) / 2 + ". " + sans[i]);
+            else if (i == 0) word(turn / 2 + "... " + sans[i]);
+            else word(sans[i]);
+        }
+        word(result);
+        out.append(line).append("\n\n");
+    }
+
+    // Keeps a move number on the same line as its move.
+    private void word(String word) throws IOException {
+        if (line.length() > 0 && line.length() + 1 + word.length() > LINE_LENGTH) {
+            out.append(line).append('\n');
+            line.setLength(0);
+        }
+        if (line.length() > 0) line.append(' ');
+        line.append(word);
+    }
+
+    // replay is in the final position, built with makeMove, so only the match knows about repetitions.
+    private static String result(ChessMatch match, ChessMatch replay, int[] buffer) {
+        if (replay.generateLegalMoves(buffer, 0) == 0) {
+            if (!replay.isInCheck()) return "1/2-1/2";
+            return replay.getCurrentPlayer() == Color.WHITE ? "0-1" : "1-0";
+        }
+        return match.isDraw() ? "1/2-1/2" : "*";
+    }
+}
@@ -0,0 +1,125 @@
+package chess.pgn;
+
+import boardgame.Move;
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.Color;
+import chess.PieceCode;
+import chess.exceptions.ChessException;
+
+// Standard algebraic notation, read and written against the legal moves of the match's current position.
+public final class San {
+
+    private static final String PIECES = " PNBRQK";
+
+    private San() {
+    }
+
+    // Finds the legal move the SAN token stands for; moves is scratch space of ChessMatch.MAX_MOVES.
+    public static int parse(ChessMatch match, String san, int[] moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+        String text = san.substring(0, end);
+
+        if (text.equals("O-O") || text.equals("0-0") || text.equals("O-O-O") || text.equals("0-0-0")) {
+            int backRank = match.getCurrentPlayer() == Color.WHITE ? 56 : 0;
+            int count = match.generateLegalMovesTo(PieceCode.KING, backRank + (text.length() == 3 ? 6 : 2), moves, 0);
+            for (int i = 0; i < count; i++) {
+                if (ChessMove.isCastling(moves[i])) return moves[i];
+            }
+            throw new ChessException("Illegal castling: " + san);
+        }
+
+        int type = PieceCode.PAWN;
+        int start = 0;
+        if (!text.isEmpty() && "NBRQK".indexOf(text.charAt(0)) >= 0) {
+            type = PIECES.indexOf(text.charAt(0));
+            start = 1;
+        }
+        int promotion = 0;
+        int equals = text.indexOf('=');
+        if (equals >= 0) {
+            if (equals + 2 != text.length()) throw new ChessException("Invalid promotion: " + san);
+            promotion = promotionType(text.charAt(equals + 1), san);
+            text = text.substring(0, equals);
+        } else if (type == PieceCode.PAWN && !text.isEmpty() && "NBRQ".indexOf(text.charAt(text.length() - 1)) >= 0) {
+            promotion = promotionType(text.charAt(text.length() - 1), san);
+            text = text.substring(0, text.length() - 1);
+        }
+        if (text.length() - start < 2) throw new ChessException("Invalid move: " + san);
+        int target = square(text.charAt(text.length() - 2), text.charAt(text.length() - 1), san);
+
+        int fromColumn = -1;
+        int fromRow = -1;
+        for (int i = start; i < text.length() - 2; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'h') fromColumn = c - 'a';
+            else if (c >= '1' && c <= '8') fromRow = 8 - (c - '0');
+            else if (c != 'x' && c != ':' && c != '-') throw new ChessException("Invalid move: " + san);
+        }
+
+        int count = match.generateLegalMovesTo(type, target, moves, 0);
+        int found = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = Move.from(move);
+            if (ChessMove.isCastling(move) || ChessMove.promotionType(move) != promotion) continue;
+            if (fromColumn >= 0 && from % 8 != fromColumn || fromRow >= 0 && from / 8 != fromRow) continue;
+            if (found != 0) throw new ChessException("Ambiguous move: " + san);
+            found = move;
+        }
+        if (found == 0) throw new ChessException("Illegal move: " + san);
+        return found;
+    }
+
+    // The SAN of a legal move in the current position, with + or # when it gives check or mate.
+    public static String format(ChessMatch match, int move, int[] moves) {
+        StringBuilder sb = new StringBuilder(8);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        if (ChessMove.isCastling(move)) {
+            sb.append(to > from ? "O-O" : "O-O-O");
+        } else {
+            int type = PieceCode.type(match.getPieceCode(from));
+            if (type == PieceCode.PAWN) {
+                if (ChessMove.isCapture(move)) sb.append((char) ('a' + from % 8));
+            } else {
+                sb.append(PIECES.charAt(type));
+                boolean ambiguous = false;
+                boolean sameColumn = false;
+                boolean sameRow = false;
+                int count = match.generateLegalMovesTo(type, to, moves, 0);
+                for (int i = 0; i < count; i++) {
+                    int other = Move.from(moves[i]);
+                    if (other == from) continue;
+                    ambiguous = true;
+                    sameColumn |= other % 8 == from % 8;
+                    sameRow |= other / 8 == from / 8;
+                }
+                if (ambiguous) {
+                    if (!sameColumn) sb.append((char) ('a' + from % 8));
+                    else if (!sameRow) sb.append((char) ('8' - from / 8));
+                    else sb.append(ChessMove.squareName(from));
+                }
+            }
+            if (ChessMove.isCapture(move)) sb.append('x');
+            sb.append(ChessMove.squareName(to));
+            if (ChessMove.isPromotion(move)) sb.append('=').append(PIECES.charAt(ChessMove.promotionType(move)));
+        }
+        match.makeMove(move);
+        if (match.isInCheck()) sb.append(match.generateLegalMoves(moves, 0) == 0 ? '#' : '+');
+        match.unmakeMove();
+        return sb.toString();
+    }
+
+    private static int promotionType(char c, String san) {
+        int type = "NBRQ".indexOf(c);
+        if (type < 0) throw new ChessException("Invalid promotion: " + san);
+        return PIECES.indexOf(c);
+    }
+
+    private static int square(char column, char row, String san) {
+        if (column < 'a' || column > 'h' || row < '1' || row > '8') throw new ChessException("Invalid square in move: " + san);
+        return (8 - (row - '0')) * 8 + (column - 'a');
+    }
+}
@@ -1,14 +1,14 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceCode;
 
 public class Bishop extends ChessPiece {
 
     public Bishop(Board board, Color color) {
-        super(board, color);
+        super(board, color, PieceCode.BISHOP);
     }
 
     @Override
@@ -17,46 +17,16 @@ public class Bishop extends ChessPiece {
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-        Position p = new Position(0, 0);
-
+    public int generateMoves(int[] moves, int offset) {
+        int n = offset;
         //nw
-        p.setValues(position.getRow() - 1, position.getCol() - 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            mat[p.getRow()][p.getCol()] = true;
-            p.setValues(p.getRow() - 1, p.getCol() - 1);
-        }
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = slide(moves, n, -1, -1);
         //ne
-        p.setValues(position.getRow() - 1, position.getCol() + 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            mat[p.getRow()][p.getCol()] = true;
-            p.setValues(p.getRow() - 1, p.getCol() + 1);
-        }
-
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = slide(moves, n, -1, 1);
         //se
-        p.setValues(position.getRow() + 1, position.getCol() + 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            mat[p.getRow()][p.getCol()] = true;
-            p.setValues(p.getRow() + 1, p.getCol() + 1);
-        }
-
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = slide(moves, n, 1, 1);
         //sw
-        p.setValues(position.getRow() + 1, position.getCol() - 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            mat[p.getRow()][p.getCol()] = true;
-            p.setValues(p.getRow() + 1, p.getCol() - 1);
-        }
-
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p))
-            mat[p.getRow()][p.getCol()] = true;
-
-        return mat;
+        n = slide(moves, n, 1, -1);
+        return n - offset;
     }
 }
@@ -1,17 +1,19 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import boardgame.Move;
 import chess.ChessMatch;
+import chess.ChessMove;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceCode;
 
 public class King extends ChessPiece {
 
     private ChessMatch chessMatch;
     public King(Board board, Color color, ChessMatch chessMatch) {
 
-        super(board, color);
+        super(board, color, PieceCode.KING);
         this.chessMatch = chessMatch;
     }
 
@@ -20,76 +22,49 @@ public class King extends ChessPiece {
         return "K";
     }
 
-    private boolean canMove(Position position) {
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p == null || p.getColor() != getColor();
+    private boolean testRookCastiling(int row, int column){
+        return getBoard().positionExists(row, column)
+                && getBoard().code(row, column) == PieceCode.of(PieceCode.ROOK, getColor());
     }
 
-    private boolean testRookCastiling(Position position){
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p instanceof Rook && p.getColor() == getColor() && p.getMoveCount() == 0;
+    private boolean isEmpty(int row, int column) {
+        return getBoard().code(row, column) == PieceCode.EMPTY;
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-        Position p = new Position(0,0);
-
+    public int generateMoves(int[] moves, int offset) {
+        int n = offset;
         //above
-        p.setValues(position.getRow() - 1, position.getCol());
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = step(moves, n, -1, 0);
         //below
-        p.setValues(position.getRow() + 1, position.getCol());
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = step(moves, n, 1, 0);
         //left
-        p.setValues(position.getRow() , position.getCol() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = step(moves, n, 0, -1);
         //right
-        p.setValues(position.getRow(), position.getCol() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = step(moves, n, 0, 1);
         //nw
-        p.setValues(position.getRow() - 1, position.getCol() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = step(moves, n, -1, -1);
         //ne
-        p.setValues(position.getRow() - 1, position.getCol() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = step(moves, n, -1, 1);
         //sw
-        p.setValues(position.getRow() + 1, position.getCol() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = step(moves, n, 1, -1);
         //se
-        p.setValues(position.getRow() + 1, position.getCol() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
+        n = step(moves, n, 1, 1);
 
         //Specialmove castling
-        if (getMoveCount() == 0 && !chessMatch.isCheck()) {
-            Position positionRook = new Position(position.getRow(), position.getCol() + 3);
-            if (testRookCastiling(positionRook)){
-                Position p1 = new Position(position.getRow(), position.getCol() + 1);
-                Position p2 = new Position(position.getRow(), position.getCol() + 2);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null) {
-                    mat[position.getRow()][position.getCol()+2] = true;
-                }
-            }
+        int row = position.getRow();
+        int column = position.getCol();
+        int from = square();
+        if (chessMatch.hasCastlingRight(getColor(), true)
+                && testRookCastiling(row, column + 3) && isEmpty(row, column + 1) && isEmpty(row, column + 2)) {
+            moves[n++] = Move.of(from, from + 2, ChessMove.CASTLING);
+        }
 
-            Position positionRook2 = new Position(position.getRow(), position.getCol() + 3);
-            if (testRookCastiling(positionRook2)){
-                Position p1 = new Position(position.getRow(), position.getCol() + 1);
-                Position p2 = new Position(position.getRow(), position.getCol() + 2);
-                Position p3 = new Position(position.getRow(), position.getCol() + 3);
-                if (getBoard().piece(p1) == null && getBoard().piece(p2) == null && getBoard().piece(p3) == null) {
-                    mat[position.getRow()][position.getCol()-2] = true;
-                }
-            }
+        if (chessMatch.hasCastlingRight(getColor(), false) && testRookCastiling(row, column - 4)
+                && isEmpty(row, column - 1) && isEmpty(row, column - 2) && isEmpty(row, column - 3)) {
+            moves[n++] = Move.of(from, from - 2, ChessMove.CASTLING);
         }
 
-        return mat;
+        return n - offset;
     }
 }
@@ -1,60 +1,31 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceCode;
 
 public class Knight extends ChessPiece {
     public Knight(Board board, Color color) {
-        super(board, color);
+        super(board, color, PieceCode.KNIGHT);
     }
 
     @Override
     public String toString() {
         return "N";
     }
-    private boolean canMove(Position position){
-        ChessPiece p = (ChessPiece) getBoard().piece(position);
-        return p == null || p.getColor() != getColor();
-    }
-    @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-        Position p = new Position(0,0);
-
-
-        p.setValues(position.getRow() - 1, position.getCol() - 2);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
-
-        p.setValues(position.getRow() - 2, position.getCol() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
-
-        p.setValues(position.getRow() - 2, position.getCol() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
-
-        p.setValues(position.getRow() - 1, position.getCol() + 2);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
 
-
-        p.setValues(position.getRow() + 1, position.getCol() + 2);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
-
-        p.setValues(position.getRow() + 2 , position.getCol() + 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
-
-        p.setValues(position.getRow() + 2, position.getCol() - 1);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
-
-        p.setValues(position.getRow() + 1, position.getCol() - 2);
-        if (getBoard().positionExists(p) && canMove(p)) mat[p.getRow()][p.getCol()] = true;
-
-        return mat;
+    @Override
+    public int generateMoves(int[] moves, int offset) {
+        int n = offset;
+        n = step(moves, n, -1, -2);
+        n = step(moves, n, -2, -1);
+        n = step(moves, n, -2, 1);
+        n = step(moves, n, -1, 2);
+        n = step(moves, n, 1, 2);
+        n = step(moves, n, 2, 1);
+        n = step(moves, n, 2, -1);
+        n = step(moves, n, 1, -2);
+        return n - offset;
     }
 }
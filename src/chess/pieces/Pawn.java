@@ -1,17 +1,19 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
+import boardgame.Move;
 import chess.ChessMatch;
+import chess.ChessMove;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceCode;
 
 public class Pawn extends ChessPiece {
 
     ChessMatch chessMatch;
 
     public Pawn(Board board, Color color, ChessMatch chessMatch) {
-        super(board, color);
+        super(board, color, PieceCode.PAWN);
         this.chessMatch = chessMatch;
     }
 
@@ -21,77 +23,54 @@ public class Pawn extends ChessPiece {
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-        Position p = new Position(0, 0);
-        if (getColor() == Color.WHITE) {
-            p.setValues(position.getRow() - 1, position.getCol());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) mat[p.getRow()][p.getCol()] = true;
-
-            p.setValues(position.getRow() - 2, position.getCol());
-            Position p2 = new Position(position.getRow() - 1, position.getCol());
-            if (getBoard().positionExists(p) &&
-                    !getBoard().thereIsAPiece(p) &&
-                    getBoard().positionExists(p2) &&
-                    !getBoard().thereIsAPiece(p2) &&
-                    getMoveCount() == 0) mat[p.getRow()][p.getCol()] = true;
-
-            p.setValues(position.getRow() - 1, position.getCol() - 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) mat[p.getRow()][p.getCol()] = true;
-
-            p.setValues(position.getRow() - 1, position.getCol() + 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) mat[p.getRow()][p.getCol()] = true;
-
+    public int generateMoves(int[] moves, int offset) {
+        Board board = getBoard();
+        int n = offset;
+        int direction = getColor() == Color.WHITE ? -1 : 1;
+        int startRow = getColor() == Color.WHITE ? board.getRows() - 2 : 1;
+        int lastRow = getColor() == Color.WHITE ? 0 : board.getRows() - 1;
+        int enPassantRow = getColor() == Color.WHITE ? 3 : 4;
+        int row = position.getRow();
+        int column = position.getCol();
+        int from = square();
+        int ahead = row + direction;
+        if (!board.positionExists(ahead, column)) return 0;
+
+        if (board.code(ahead, column) == PieceCode.EMPTY) {
+            n = addMove(moves, n, from, ahead * board.getColumns() + column, 0, ahead == lastRow);
+            int twoAhead = ahead + direction;
+            if (row == startRow && board.code(twoAhead, column) == PieceCode.EMPTY)
+                moves[n++] = Move.of(from, twoAhead * board.getColumns() + column, ChessMove.DOUBLE_PUSH);
+        }
 
+        for (int side = -1; side <= 1; side += 2) {
+            int target = column + side;
+            if (!board.positionExists(ahead, target)) continue;
+            if (isThereOpponentPiece(ahead, target)) {
+                n = addMove(moves, n, from, ahead * board.getColumns() + target, ChessMove.CAPTURE, ahead == lastRow);
+            }
             //enpassant
-            if (position.getRow() == 3){
-                Position left = new Position(position.getRow(), position.getCol() - 1);
-                if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVunerable()){
-                    mat[left.getRow() - 1][left.getCol()] = true;
-                }
-
-                Position right = new Position(position.getRow(), position.getCol() + 1);
-                if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVunerable()){
-                    mat[right.getRow() - 1][right.getCol()] = true;
-                }
+            else if (row == enPassantRow && isEnPassantVunerable(row, target)) {
+                moves[n++] = Move.of(from, ahead * board.getColumns() + target, ChessMove.EN_PASSANT);
             }
+        }
+        return n - offset;
+    }
 
-        } else {
-            p.setValues(position.getRow() + 1, position.getCol());
-            if (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p))
-                mat[p.getRow()][p.getCol()] = true;
-
-
-            p.setValues(position.getRow() + 2, position.getCol());
-            Position p2 = new Position(position.getRow() + 1, position.getCol());
-            if (getBoard().positionExists(p) &&
-                    !getBoard().thereIsAPiece(p) &&
-                    getBoard().positionExists(p2) &&
-                    !getBoard().thereIsAPiece(p2) &&
-                    getMoveCount() == 0)
-                mat[p.getRow()][p.getCol()] = true;
-
-            p.setValues(position.getRow() + 1, position.getCol() - 1);
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p))
-                mat[p.getRow()][p.getCol()] = true;
-
-
-            p.setValues(position.getRow() + 1, position.getCol() + 1);
-
-            if (getBoard().positionExists(p) && isThereOpponentPiece(p)) mat[p.getRow()][p.getCol()] = true;
-
-            if (position.getRow() == 4){
-                Position left = new Position(position.getRow(), position.getCol() - 1);
-                if (getBoard().positionExists(left) && isThereOpponentPiece(left) && getBoard().piece(left) == chessMatch.getEnPassantVunerable()){
-                    mat[left.getRow() + 1][left.getCol()] = true;
-                }
+    private boolean isEnPassantVunerable(int row, int column) {
+        ChessPiece vunerable = chessMatch.getEnPassantVunerable();
+        return vunerable != null && isThereOpponentPiece(row, column) && getBoard().piece(row, column) == vunerable;
+    }
 
-                Position right = new Position(position.getRow(), position.getCol() + 1);
-                if (getBoard().positionExists(right) && isThereOpponentPiece(right) && getBoard().piece(right) == chessMatch.getEnPassantVunerable()){
-                    mat[right.getRow() + 1][right.getCol()] = true;
-                }
-            }
+    private int addMove(int[] moves, int n, int from, int to, int flags, boolean promotion) {
+        if (!promotion) {
+            moves[n++] = Move.of(from, to, flags);
+            return n;
         }
-        return mat;
+        moves[n++] = Move.of(from, to, flags | ChessMove.promotion(PieceCode.QUEEN));
+        moves[n++] = Move.of(from, to, flags | ChessMove.promotion(PieceCode.ROOK));
+        moves[n++] = Move.of(from, to, flags | ChessMove.promotion(PieceCode.BISHOP));
+        moves[n++] = Move.of(from, to, flags | ChessMove.promotion(PieceCode.KNIGHT));
+        return n;
     }
 }
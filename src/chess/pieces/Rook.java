@@ -1,14 +1,14 @@
 package chess.pieces;
 
 import boardgame.Board;
-import boardgame.Position;
 import chess.ChessPiece;
 import chess.Color;
+import chess.PieceCode;
 
 public class Rook extends ChessPiece {
 
     public Rook(Board board, Color color) {
-        super(board, color);
+        super(board, color, PieceCode.ROOK);
     }
 
     @Override
@@ -17,47 +17,16 @@ public class Rook extends ChessPiece {
     }
 
     @Override
-    public boolean[][] possibleMoves() {
-        boolean[][] mat = new boolean[getBoard().getRows()][getBoard().getColumns()];
-        Position p = new Position(0, 0);
+    public int generateMoves(int[] moves, int offset) {
+        int n = offset;
         //above
-        p.setValues(position.getRow() - 1, position.getCol());
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            mat[p.getRow()][p.getCol()] = true;
-            p.setRow(p.getRow() - 1);
-        }
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p))
-            mat[p.getRow()][p.getCol()] = true;
-
+        n = slide(moves, n, -1, 0);
         //left
-        p.setValues(position.getRow(), position.getCol() - 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            mat[p.getRow()][p.getCol()] = true;
-            p.setCol(p.getCol() - 1);
-        }
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p))
-            mat[p.getRow()][p.getCol()] = true;
-
+        n = slide(moves, n, 0, -1);
         //right
-        p.setValues(position.getRow(), position.getCol() + 1);
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            mat[p.getRow()][p.getCol()] = true;
-            p.setCol(p.getCol() + 1);
-        }
-
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p))
-            mat[p.getRow()][p.getCol()] = true;
-
+        n = slide(moves, n, 0, 1);
         //below
-        p.setValues(position.getRow()+1, position.getCol());
-        while (getBoard().positionExists(p) && !getBoard().thereIsAPiece(p)) {
-            mat[p.getRow()][p.getCol()] = true;
-            p.setRow(p.getRow() + 1);
-        }
-
-        if (getBoard().positionExists(p) && isThereOpponentPiece(p))
-            mat[p.getRow()][p.getCol()] = true;
-
-        return mat;
+        n = slide(moves, n, 1, 0);
+        return n - offset;
     }
 }
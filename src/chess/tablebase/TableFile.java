@@ -0,0 +1,184 @@
+package chess.tablebase;
+
+import chess.Color;
+import chess.PieceCode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// One table on disk, memory-mapped: a 24-byte header (the magic "CHESSTB1", the PieceCodes of the pieces in
+// table order padded to 8 bytes, the positions per block and the number of blocks), the file offset of every
+// block and one past the last (longs), then the blocks, each one byte per position deflated on its own. A
+// probe inflates only the block it needs, and keeps the last one per thread, as positions probed one after
+// the other tend to be close; close() ends the inflaters of those blocks. Invalid positions are written as the value before them, which they never get
+// probed for, so they compress away.
+final class TableFile {
+
+    static final long MAGIC = 0x4348455353544231L;
+    static final int HEADER_SIZE = 24;
+    static final int BLOCK_SIZE = 1024;
+
+    final TableIndex index;
+    private final MappedByteBuffer data;
+    private final int blocks;
+    private final ThreadLocal<Block> lastBlock = ThreadLocal.withInitial(this::newThreadBlock);
+    // Every thread's block, so close() can reach their inflaters. Guarded by itself.
+    private final List<Block> threadBlocks = new ArrayList<>();
+    private volatile boolean closed;
+
+    private TableFile(TableIndex index, MappedByteBuffer data, int blocks) {
+        this.index = index;
+        this.data = data;
+        this.blocks = blocks;
+    }
+
+    static TableFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) throw new IOException("Not a table: " + file);
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            data.order(ByteOrder.BIG_ENDIAN);
+            if (data.getLong(0) != MAGIC) throw new IOException("Not a table: " + file);
+            int[] white = new int[TableIndex.MAX_PIECES];
+            int[] black = new int[TableIndex.MAX_PIECES];
+            int whites = 0;
+            int blacks = 0;
+            for (int i = 2; i < 8; i++) {
+                int code = data.get(8 + i);
+                if (code == PieceCode.EMPTY) break;
+                if (PieceCode.color(code) == Color.WHITE) white[whites++] = PieceCode.type(code);
+                else black[blacks++] = PieceCode.type(code);
+            }
+            TableIndex index = TableIndex.of(Arrays.copyOf(white, whites), Arrays.copyOf(black, blacks));
+            int blockSize = data.getInt(16);
+            int blocks = data.getInt(20);
+            if (blockSize != BLOCK_SIZE || blocks != (index.positions() + BLOCK_SIZE - 1) / BLOCK_SIZE)
+                throw new IOException("Not a table: " + file);
+            return new TableFile(index, data, blocks);
+        }
+    }
+
+    // Writes the table next to the file and moves it into place; returns the file size.
+    static long write(Path file, TableIndex index, byte[] values) throws IOException {
+        int blocks = (values.length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        byte[] block = new byte[BLOCK_SIZE];
+        byte[] compressed = new byte[BLOCK_SIZE * 2];
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long offset = HEADER_SIZE + 8L * (blocks + 1);
+            ByteBuffer offsets = ByteBuffer.allocate((int) (offset - HEADER_SIZE));
+            channel.position(offset);
+            byte previous = Tablebase.DRAW;
+            for (int b = 0; b < blocks; b++) {
+                int length = Math.min(BLOCK_SIZE, values.length - b * BLOCK_SIZE);
+                for (int i = 0; i < length; i++) {
+                    byte value = values[b * BLOCK_SIZE + i];
+                    if (value != (byte) Tablebase.INVALID) previous = value;
+                    block[i] = previous;
+                }
+                deflater.reset();
+                deflater.setInput(block, 0, length);
+                deflater.finish();
+                int size = 0;
+                while (!deflater.finished()) size += deflater.deflate(compressed, size, compressed.length - size);
+                offsets.putLong(offset);
+                channel.write(ByteBuffer.wrap(compressed, 0, size));
+                offset += size;
+            }
+            offsets.putLong(offset);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC);
+            for (int i = 0; i < 8; i++) {
+                header.put(i < index.size ? PieceCode.of(index.types[i], index.colors[i] == 0 ? Color.WHITE : Color.BLACK) : 0);
+            }
+            header.putInt(BLOCK_SIZE).putInt(blocks);
+            header.flip();
+            offsets.flip();
+            channel.write(header, 0);
+            channel.write(offsets, HEADER_SIZE);
+            channel.force(false);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return Files.size(file);
+    }
+
+    // Stored value of the position: Tablebase.DRAW or distance to mate + 1.
+    int get(int position) {
+        int block = position / BLOCK_SIZE;
+        Block last = lastBlock.get();
+        if (last.number != block) inflate(block, last);
+        return last.values[position - block * BLOCK_SIZE] & 0xff;
+    }
+
+    // Frees the inflaters' native memory; a later probe that needs another block throws IllegalStateException.
+    void close() {
+        closed = true;
+        synchronized (threadBlocks) {
+            for (Block block : threadBlocks) block.inflater.end();
+            threadBlocks.clear();
+        }
+    }
+
+    private Block newThreadBlock() {
+        Block block = new Block();
+        synchronized (threadBlocks) {
+            threadBlocks.add(block);
+        }
+        return block;
+    }
+
+    // The whole table, for the generator to capture into.
+    byte[] readAll() {
+        byte[] values = new byte[index.positions()];
+        Block block = new Block();
+        for (int b = 0; b < blocks; b++) {
+            inflate(b, block);
+            System.arraycopy(block.values, 0, values, b * BLOCK_SIZE, Math.min(BLOCK_SIZE, values.length - b * BLOCK_SIZE));
+        }
+        block.inflater.end();
+        return values;
+    }
+
+    private void inflate(int number, Block block) {
+        if (closed) throw new IllegalStateException("Table " + index.name + " is closed");
+        int start = (int) data.getLong(HEADER_SIZE + 8 * number);
+        int end = (int) data.getLong(HEADER_SIZE + 8 * (number + 1));
+        Inflater inflater = block.inflater;
+        inflater.reset();
+        inflater.setInput(data.slice(start, end - start));
+        try {
+            int length = 0;
+            while (!inflater.finished() && length < BLOCK_SIZE) {
+                int n = inflater.inflate(block.values, length, BLOCK_SIZE - length);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new IllegalStateException("Truncated block " + number + " in table " + index.name);
+                length += n;
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block " + number + " in table " + index.name, e);
+        }
+        block.number = number;
+    }
+
+    private static final class Block {
+        private final byte[] values = new byte[BLOCK_SIZE];
+        private final Inflater inflater = new Inflater();
+        private int number = -1;
+    }
+}
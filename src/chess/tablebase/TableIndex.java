@@ -0,0 +1,259 @@
+package chess.tablebase;
+
+import chess.PieceCode;
+
+import java.util.Arrays;
+
+// The material of one table and the numbering of its positions. Pieces are listed white king, black king, the
+// other white pieces, then the other black pieces, strongest first, e.g. KQvKR is K k Q r. Squares count
+// from a1 = 0 to h8 = 63 (ChessMatch counts from a8). Without pawns the board has 8 symmetries, so every
+// position is first turned until the white king is in the a1-d1-d4 triangle; the index is then
+//   side to move * half + triangle slot of the white king * 64^(n-1) + the other squares in base 64.
+// Positions that can't occur (two pieces on a square, kings touching, the side not to move in check) have an
+// index too, as do positions whose index() is another one, and the generator marks them all invalid.
+final class TableIndex {
+
+    static final int MAX_PIECES = 5;
+    static final String LETTERS = " PNBRQK";
+
+    static final long[] KING = new long[64];
+    static final long[] KNIGHT = new long[64];
+    // Squares strictly between two squares on a line, and 1 for a rank or file, 2 for a diagonal, 0 otherwise.
+    static final long[][] BETWEEN = new long[64][64];
+    static final byte[][] LINE = new byte[64][64];
+    // Rays from a square in the directions N, E, NE, NW (towards higher squares) and S, W, SW, SE.
+    private static final long[][] RAYS = new long[8][64];
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {-1, 1}, {0, -1}, {-1, 0}, {-1, -1}, {1, -1}};
+
+    // TRANSFORMS[t][square]: bit 0 mirrors the files, bit 1 the ranks, bit 2 swaps files and ranks.
+    static final int[][] TRANSFORMS = new int[8][64];
+    // The transform that takes a white king on the square into the triangle.
+    static final int[] KING_TRANSFORM = new int[64];
+    static final int[] TRIANGLE_SLOT = new int[64];
+    static final int[] TRIANGLE_SQUARES = new int[10];
+    // TRANSFORMS[t] followed by the mirror across the a1-h8 diagonal.
+    private static final int[][] DIAGONAL_TRANSFORMS = new int[8][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            int rank = square >> 3;
+            for (int df = -1; df <= 1; df++) {
+                for (int dr = -1; dr <= 1; dr++) {
+                    if (df != 0 || dr != 0) KING[square] |= bit(file + df, rank + dr);
+                }
+            }
+            int[][] jumps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+            for (int[] jump : jumps) KNIGHT[square] |= bit(file + jump[0], rank + jump[1]);
+            for (int d = 0; d < 8; d++) {
+                long between = 0;
+                for (int f = file + DIRECTIONS[d][0], r = rank + DIRECTIONS[d][1]; f >= 0 && f < 8 && r >= 0 && r < 8;
+                     f += DIRECTIONS[d][0], r += DIRECTIONS[d][1]) {
+                    int target = r * 8 + f;
+                    RAYS[d][square] |= 1L << target;
+                    BETWEEN[square][target] = between;
+                    LINE[square][target] = (byte) (DIRECTIONS[d][0] == 0 || DIRECTIONS[d][1] == 0 ? 1 : 2);
+                    between |= 1L << target;
+                }
+            }
+        }
+        Arrays.fill(TRIANGLE_SLOT, -1);
+        int slots = 0;
+        for (int square = 0; square < 64; square++) {
+            int file = square & 7;
+            int rank = square >> 3;
+            if (file <= 3 && rank <= file) {
+                TRIANGLE_SLOT[square] = slots;
+                TRIANGLE_SQUARES[slots++] = square;
+            }
+            for (int t = 0; t < 8; t++) {
+                int f = (t & 1) != 0 ? 7 - file : file;
+                int r = (t & 2) != 0 ? 7 - rank : rank;
+                TRANSFORMS[t][square] = (t & 4) != 0 ? f * 8 + r : r * 8 + f;
+            }
+        }
+        for (int t = 0; t < 8; t++) {
+            for (int square = 0; square < 64; square++) DIAGONAL_TRANSFORMS[t][square] = TRANSFORMS[4][TRANSFORMS[t][square]];
+        }
+        for (int square = 0; square < 64; square++) {
+            int t = 0;
+            while (TRIANGLE_SLOT[TRANSFORMS[t][square]] < 0) t++;
+            KING_TRANSFORM[square] = t;
+        }
+    }
+
+    final String name;
+    final int size;
+    // PieceCode type and color (0 white, 1 black) of each piece, in table order.
+    final int[] types;
+    final int[] colors;
+    // Positions with one side to move; 10 * 64^4 for five pieces, so every index fits in an int.
+    final int half;
+
+    private TableIndex(int[] types, int[] colors) {
+        this.size = types.length;
+        this.types = types;
+        this.colors = colors;
+        int positions = 10;
+        for (int i = 1; i < size; i++) positions *= 64;
+        this.half = positions;
+        StringBuilder name = new StringBuilder("K");
+        for (int i = 2; i < size; i++) {
+            if (colors[i] == 0) name.append(LETTERS.charAt(types[i]));
+        }
+        name.append("vK");
+        for (int i = 2; i < size; i++) {
+            if (colors[i] == 1) name.append(LETTERS.charAt(types[i]));
+        }
+        this.name = name.toString();
+    }
+
+    // Table for a name like "KQvKR"; the side written first becomes white. Throws for pawns or bad names.
+    static TableIndex parse(String name) {
+        int v = name.indexOf('v');
+        if (v < 1 || name.charAt(0) != 'K' || v + 1 >= name.length() || name.charAt(v + 1) != 'K')
+            throw new IllegalArgumentException("Not a material like KQvKR: " + name);
+        int[] white = types(name.substring(1, v), name);
+        int[] black = types(name.substring(v + 2), name);
+        if (white.length + black.length + 2 > MAX_PIECES)
+            throw new IllegalArgumentException("Tables go up to " + MAX_PIECES + " pieces: " + name);
+        return of(white, black);
+    }
+
+    private static int[] types(String letters, String name) {
+        int[] types = new int[letters.length()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = LETTERS.indexOf(letters.charAt(i));
+            if (types[i] < PieceCode.KNIGHT || types[i] > PieceCode.QUEEN)
+                throw new IllegalArgumentException("Only K, Q, R, B and N besides the kings, no pawns: " + name);
+        }
+        return types;
+    }
+
+    // Non-king pieces of each side in any order.
+    static TableIndex of(int[] white, int[] black) {
+        int[] w = sortedDescending(white);
+        int[] b = sortedDescending(black);
+        int[] types = new int[2 + w.length + b.length];
+        int[] colors = new int[types.length];
+        types[0] = PieceCode.KING;
+        types[1] = PieceCode.KING;
+        colors[1] = 1;
+        for (int i = 0; i < w.length; i++) types[2 + i] = w[i];
+        for (int i = 0; i < b.length; i++) {
+            types[2 + w.length + i] = b[i];
+            colors[2 + w.length + i] = 1;
+        }
+        return new TableIndex(types, colors);
+    }
+
+    private static int[] sortedDescending(int[] types) {
+        int[] sorted = types.clone();
+        Arrays.sort(sorted);
+        for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+            int t = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = t;
+        }
+        return sorted;
+    }
+
+    // Whether a side with these pieces, strongest first, is written first (white) in the table name: the one
+    // with the stronger piece at the first difference, or with more pieces. Equal sides are canonical both ways.
+    static boolean isCanonical(int[] white, int[] black) {
+        for (int i = 0; i < Math.min(white.length, black.length); i++) {
+            if (white[i] != black[i]) return white[i] > black[i];
+        }
+        return white.length >= black.length;
+    }
+
+    boolean isCanonical() {
+        return isCanonical(side(0), side(1));
+    }
+
+    // The non-king pieces of a side, strongest first.
+    int[] side(int color) {
+        int count = 0;
+        for (int i = 2; i < size; i++) count += colors[i] == color ? 1 : 0;
+        int[] side = new int[count];
+        for (int i = 2, n = 0; i < size; i++) {
+            if (colors[i] == color) side[n++] = types[i];
+        }
+        return side;
+    }
+
+    // Number of positions, both sides to move.
+    int positions() {
+        return 2 * half;
+    }
+
+    // Index of a position given the squares of its pieces in table order, in any orientation. A white king
+    // on the a1-d4 diagonal leaves the position and its mirror image across the diagonal both in the
+    // triangle; the one with the first piece off the diagonal below it is taken.
+    int index(int sideToMove, int[] squares) {
+        int t = KING_TRANSFORM[squares[0]];
+        int[] transform = TRANSFORMS[t];
+        int king = transform[squares[0]];
+        if ((king & 7) == king >> 3) {
+            for (int i = 1; i < size; i++) {
+                int square = transform[squares[i]];
+                if ((square & 7) == square >> 3) continue;
+                if ((square & 7) < square >> 3) transform = DIAGONAL_TRANSFORMS[t];
+                break;
+            }
+        }
+        int index = TRIANGLE_SLOT[transform[squares[0]]];
+        for (int i = 1; i < size; i++) index = index << 6 | transform[squares[i]];
+        return sideToMove * half + index;
+    }
+
+    // Squares of the position with the index, white king in the triangle; returns the side to move.
+    int decode(int index, int[] squares) {
+        int sideToMove = index >= half ? 1 : 0;
+        int rest = index - sideToMove * half;
+        for (int i = size - 1; i > 0; i--) {
+            squares[i] = rest & 63;
+            rest >>>= 6;
+        }
+        squares[0] = TRIANGLE_SQUARES[rest];
+        return sideToMove;
+    }
+
+    // Squares attacked from the square by a piece of the type, with occupied blocking the sliders.
+    static long attacks(int type, int square, long occupied) {
+        return switch (type) {
+            case PieceCode.KING -> KING[square];
+            case PieceCode.KNIGHT -> KNIGHT[square];
+            case PieceCode.BISHOP -> slide(square, occupied, 2, 3, 6, 7);
+            case PieceCode.ROOK -> slide(square, occupied, 0, 1, 4, 5);
+            default -> slide(square, occupied, 0, 1, 4, 5) | slide(square, occupied, 2, 3, 6, 7);
+        };
+    }
+
+    private static long slide(int square, long occupied, int up1, int up2, int down1, int down2) {
+        return ray(square, occupied, up1) | ray(square, occupied, up2) | ray(square, occupied, down1) | ray(square, occupied, down2);
+    }
+
+    private static long ray(int square, long occupied, int direction) {
+        long ray = RAYS[direction][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) return ray;
+        int blocker = direction < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[direction][blocker];
+    }
+
+    // Whether a piece of the type on from attacks target, with occupied blocking the sliders.
+    static boolean attacks(int type, int from, int target, long occupied) {
+        return switch (type) {
+            case PieceCode.KING -> (KING[from] >>> target & 1) != 0;
+            case PieceCode.KNIGHT -> (KNIGHT[from] >>> target & 1) != 0;
+            case PieceCode.BISHOP -> LINE[from][target] == 2 && (BETWEEN[from][target] & occupied) == 0;
+            case PieceCode.ROOK -> LINE[from][target] == 1 && (BETWEEN[from][target] & occupied) == 0;
+            default -> LINE[from][target] != 0 && (BETWEEN[from][target] & occupied) == 0;
+        };
+    }
+
+    private static long bit(int file, int rank) {
+        return file < 0 || file > 7 || rank < 0 || rank > 7 ? 0 : 1L << (rank * 8 + file);
+    }
+}
@@ -0,0 +1,193 @@
+package chess.tablebase;
+
+import chess.ChessMatch;
+import chess.Color;
+import chess.PieceCode;
+import chess.engine.Search;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+// The tables of a directory, as TablebaseGenerator writes them, for exact results in pawnless endings of up to
+// five pieces. A probe reads the position off the ChessMatch, finds the table for its material (the one with
+// the colors the other way round will do, with the board flipped) and looks up one byte.
+public final class Tablebase implements AutoCloseable {
+
+    public static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    static final String EXTENSION = ".tb";
+    static final int DRAW = 0;
+    static final int INVALID = 255;
+    // Longest distance to mate a byte can hold next to DRAW and INVALID.
+    static final int MAX_DISTANCE = 253;
+
+    private final Map<Integer, Table> tables = new HashMap<>();
+    // Room for the pieces of one probe, kept per thread so probing allocates nothing.
+    private final ThreadLocal<int[][]> scratch = ThreadLocal.withInitial(() -> new int[3][TableIndex.MAX_PIECES]);
+
+    private Tablebase() {
+    }
+
+    // Maps every table file of the directory.
+    public static Tablebase open(Path directory) throws IOException {
+        Tablebase tablebase = new Tablebase();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                TableFile table = TableFile.open(file);
+                tablebase.tables.put(material(table.index, false), new Table(table, false));
+                tablebase.tables.putIfAbsent(material(table.index, true), new Table(table, true));
+            }
+        }
+        return tablebase;
+    }
+
+    public int getTableCount() {
+        return (int) tables.values().stream().filter(table -> !table.flipped).count();
+    }
+
+    // Score of the position for the side to move, the way chess.engine.Search scores mates: 0 for a draw,
+    // Search.MATE - plies when it mates in that many plies, -Search.MATE + plies when it is mated; NOT_FOUND
+    // when there is no table for it (pawns, more than five pieces, castling rights left).
+    public int probe(ChessMatch match) {
+        if (match.getCastlingRights() != 0) return NOT_FOUND;
+        int[][] pieces = scratch.get();
+        int[] codes = pieces[0];
+        int[] squares = pieces[1];
+        int count = 0;
+        int material = 0;
+        for (int square = 0; square < 64; square++) {
+            int code = match.getPieceCode(square);
+            if (code == PieceCode.EMPTY) continue;
+            int type = PieceCode.type(code);
+            if (count == TableIndex.MAX_PIECES || type == PieceCode.PAWN) return NOT_FOUND;
+            codes[count] = code;
+            squares[count++] = square;
+            if (type != PieceCode.KING) material += materialBit(type, PieceCode.color(code) == Color.WHITE ? 0 : 1);
+        }
+        Table table = tables.get(material);
+        if (table == null) return NOT_FOUND;
+        TableIndex index = table.file.index;
+        // ChessMatch counts squares from a8, tables from a1: the same board upside down, which is also what
+        // swapping the colors asks for.
+        int[] ordered = pieces[2];
+        int used = 0;
+        for (int k = 0; k < count; k++) {
+            Color color = index.colors[k] == 0 ^ table.flipped ? Color.WHITE : Color.BLACK;
+            int code = PieceCode.of(index.types[k], color);
+            int j = 0;
+            while (codes[j] != code || (used >>> j & 1) != 0) j++;
+            used |= 1 << j;
+            ordered[k] = table.flipped ? squares[j] : squares[j] ^ 56;
+        }
+        int sideToMove = match.getCurrentPlayer() == Color.WHITE ^ table.flipped ? 0 : 1;
+        return score(table.file.get(index.index(sideToMove, ordered)));
+    }
+
+    @Override
+    public void close() {
+        for (Table table : tables.values()) {
+            if (!table.flipped) table.file.close();
+        }
+    }
+
+    static int score(int value) {
+        if (value == DRAW) return 0;
+        int distance = value - 1;
+        return distance % 2 == 1 ? Search.MATE - distance : -Search.MATE + distance;
+    }
+
+    private static int material(TableIndex index, boolean flipped) {
+        int material = 0;
+        for (int i = 2; i < index.size; i++) material += materialBit(index.types[i], index.colors[i] ^ (flipped ? 1 : 0));
+        return material;
+    }
+
+    // Four bits per side and piece type, enough for the three pieces a five-piece table has besides the kings.
+    private static int materialBit(int type, int color) {
+        return 1 << 4 * (color * 4 + type - PieceCode.KNIGHT);
+    }
+
+    private static final class Table {
+
+        private final TableFile file;
+        private final boolean flipped;
+
+        private Table(TableFile file, boolean flipped) {
+            this.file = file;
+            this.flipped = flipped;
+        }
+    }
+
+    // Probes random positions of every table in the directory and shows the time per probe, with the same
+    // position probed over and over (its block stays inflated) and with every probe somewhere else:
+    //   Tablebase <directory>
+    public static void main(String[] args) throws IOException {
+        SplittableRandom random = new SplittableRandom(1);
+        long sum = 0;
+        try (Tablebase tablebase = open(Path.of(args.length > 0 ? args[0] : "tablebases"))) {
+            for (Table table : tablebase.tables.values()) {
+                if (table.flipped) continue;
+                ChessMatch[] positions = randomPositions(table.file.index, random, 1024);
+                for (int round = 0; round < 3; round++) {
+                    long start = System.nanoTime();
+                    for (ChessMatch position : positions) {
+                        for (int i = 0; i < 1024; i++) sum += tablebase.probe(position);
+                    }
+                    long repeated = (System.nanoTime() - start) / (positions.length * 1024L);
+                    start = System.nanoTime();
+                    for (int i = 0; i < 16; i++) {
+                        for (ChessMatch position : positions) sum += tablebase.probe(position);
+                    }
+                    long scattered = (System.nanoTime() - start) / (positions.length * 16L);
+                    System.out.printf("%-8s %,d ns per probe of the same position, %,d ns at random%n",
+                            table.file.index.name, repeated, scattered);
+                }
+            }
+        }
+        if (sum == NOT_FOUND) System.out.println("no tables");
+    }
+
+    private static ChessMatch[] randomPositions(TableIndex index, SplittableRandom random, int count) {
+        ChessMatch[] positions = new ChessMatch[count];
+        String letters = " pnbrqk";
+        for (int n = 0; n < count; ) {
+            char[][] board = new char[8][8];
+            boolean free = true;
+            for (int i = 0; i < index.size && free; i++) {
+                int square = random.nextInt(64);
+                char letter = letters.charAt(index.types[i]);
+                free = board[square >> 3][square & 7] == 0;
+                board[square >> 3][square & 7] = index.colors[i] == 0 ? Character.toUpperCase(letter) : letter;
+            }
+            if (!free) continue;
+            StringBuilder fen = new StringBuilder();
+            for (int row = 0; row < 8; row++) {
+                int empty = 0;
+                for (int column = 0; column < 8; column++) {
+                    if (board[row][column] == 0) {
+                        empty++;
+                        continue;
+                    }
+                    if (empty > 0) fen.append(empty);
+                    empty = 0;
+                    fen.append(board[row][column]);
+                }
+                if (empty > 0) fen.append(empty);
+                if (row < 7) fen.append('/');
+            }
+            fen.append(random.nextBoolean() ? " w" : " b").append(" - - 0 1");
+            try {
+                positions[n] = ChessMatch.fromFen(fen.toString());
+                n++;
+            } catch (RuntimeException e) {
+                // Kings touching or the side not to move in check: draw another.
+            }
+        }
+        return positions;
+    }
+}
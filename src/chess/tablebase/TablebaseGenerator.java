@@ -0,0 +1,417 @@
+package chess.tablebase;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Builds pawnless tables of up to five pieces by retrograde analysis, one byte per position: 0 while unknown
+// (a draw once generation is over), distance to mate in plies + 1, or INVALID. Generation works level by level
+// on a fork-join pool, each level split over index ranges:
+//   - first every position is looked at once: invalid ones are marked, mates get distance 0, captures are
+//     resolved from the smaller tables they lead to (a capture that wins gives a first, maybe too long,
+//     distance; a position whose every move is a losing capture is lost);
+//   - then, for distance d = 0, 1, 2..., every position at distance d is unmoved: when it is lost for the side
+//     to move, each predecessor wins at d + 1; when it is won, each unresolved predecessor is checked, and is
+//     lost at d + 1 (or more, through a capture) if every one of its moves now leads to a win for the other side.
+// Distances are odd for a win of the side to move and even for a loss, so a position is never both.
+public final class TablebaseGenerator {
+
+    // Positions handled by one task without splitting further.
+    static final int CHUNK = 1 << 14;
+
+    private final Path directory;
+    private final ForkJoinPool pool;
+    // Values of every table generated or loaded so far, by name, captures looking into them.
+    private final Map<String, byte[]> tables = new HashMap<>();
+    private boolean verbose;
+
+    public TablebaseGenerator(Path directory, ForkJoinPool pool) {
+        this.directory = directory;
+        this.pool = pool;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    // Generates the table for the material, e.g. "KQvKR", and the smaller ones it needs that are not in the
+    // directory yet, writing each as it is done.
+    public void generate(String material) throws IOException {
+        TableIndex index = TableIndex.parse(material);
+        if (!index.isCanonical()) index = TableIndex.of(index.side(1), index.side(0));
+        values(index);
+    }
+
+    private byte[] values(TableIndex index) throws IOException {
+        byte[] values = tables.get(index.name);
+        if (values != null) return values;
+        Path file = directory.resolve(index.name + Tablebase.EXTENSION);
+        if (Files.exists(file)) {
+            values = TableFile.open(file).readAll();
+        } else {
+            long start = System.nanoTime();
+            values = new Generation(index).run();
+            long nanos = System.nanoTime() - start;
+            long size = TableFile.write(file, index, values);
+            if (verbose) report(index, values, nanos, size);
+        }
+        tables.put(index.name, values);
+        return values;
+    }
+
+    private void report(TableIndex index, byte[] values, long nanos, long size) {
+        long[] counts = new long[4];
+        int longest = 0;
+        for (int i = 0; i < index.half; i++) {
+            int value = values[i] & 0xff;
+            if (value == Tablebase.INVALID) continue;
+            counts[value == Tablebase.DRAW ? 1 : (value - 1) % 2 == 1 ? 0 : 2]++;
+            if (value != Tablebase.DRAW && (value - 1) % 2 == 1) longest = Math.max(longest, value - 1);
+        }
+        System.out.printf("%-8s %,13d positions, white to move: %,d won, %,d drawn, %,d lost, longest mate %d moves; "
+                        + "%,d ms, %,d bytes%n", index.name, index.positions(), counts[0], counts[1], counts[2],
+                (longest + 1) / 2, nanos / 1_000_000, size);
+    }
+
+    // A capture of one piece leads to this smaller table; the pieces left, in its order, and whether its
+    // colors are the other way round.
+    private static final class Capture {
+
+        private final TableIndex index;
+        private final byte[] values;
+        private final boolean flipped;
+        private final int[] pieces;
+
+        private Capture(TableIndex index, byte[] values, boolean flipped, int[] pieces) {
+            this.index = index;
+            this.values = values;
+            this.flipped = flipped;
+            this.pieces = pieces;
+        }
+
+        // Value of the position after the capture; squares are in the larger table's order.
+        int value(int[] squares, int sideToMove, int[] scratch) {
+            for (int k = 0; k < pieces.length; k++) scratch[k] = flipped ? squares[pieces[k]] ^ 56 : squares[pieces[k]];
+            return values[index.index(flipped ? 1 - sideToMove : sideToMove, scratch)] & 0xff;
+        }
+    }
+
+    private final class Generation {
+
+        private final TableIndex index;
+        private final byte[] values;
+        // By piece captured; null for the kings.
+        private final Capture[] captures;
+        private final AtomicInteger deepest = new AtomicInteger();
+
+        private Generation(TableIndex index) throws IOException {
+            this.index = index;
+            if (index.positions() > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("Table too large: " + index.name);
+            this.values = new byte[index.positions()];
+            this.captures = new Capture[index.size];
+            for (int j = 2; j < index.size; j++) captures[j] = capture(j);
+        }
+
+        private Capture capture(int captured) throws IOException {
+            List<Integer> white = new ArrayList<>();
+            List<Integer> black = new ArrayList<>();
+            for (int i = 2; i < index.size; i++) {
+                if (i != captured) (index.colors[i] == 0 ? white : black).add(i);
+            }
+            int[] whiteTypes = white.stream().mapToInt(i -> index.types[i]).toArray();
+            int[] blackTypes = black.stream().mapToInt(i -> index.types[i]).toArray();
+            boolean flipped = !TableIndex.isCanonical(whiteTypes, blackTypes);
+            TableIndex sub = flipped ? TableIndex.of(blackTypes, whiteTypes) : TableIndex.of(whiteTypes, blackTypes);
+            // Pieces keep their relative order, strongest first on each side, so the smaller table's order is
+            // the kings and the two sides, swapped when flipped.
+            List<Integer> pieces = new ArrayList<>();
+            pieces.add(flipped ? 1 : 0);
+            pieces.add(flipped ? 0 : 1);
+            pieces.addAll(flipped ? black : white);
+            pieces.addAll(flipped ? white : black);
+            return new Capture(sub, values(sub), flipped, pieces.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private byte[] run() {
+            pool.invoke(new Pass(this, -1, 0, values.length));
+            for (int level = 0; level <= deepest.get(); level++) {
+                pool.invoke(new Pass(this, level, 0, values.length));
+            }
+            return values;
+        }
+
+        private void reached(int distance) {
+            if (distance > Tablebase.MAX_DISTANCE)
+                throw new IllegalStateException(index.name + " has a mate in more than " + Tablebase.MAX_DISTANCE + " plies");
+            deepest.accumulateAndGet(distance, Math::max);
+        }
+    }
+
+    // One sweep over an index range: the first look at every position (level -1), or the unmoving of the
+    // positions at a distance.
+    private static final class Pass extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Generation generation;
+        private final int level;
+        private final int from;
+        private final int to;
+
+        private Pass(Generation generation, int level, int from, int to) {
+            this.generation = generation;
+            this.level = level;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > CHUNK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Pass(generation, level, from, middle), new Pass(generation, level, middle, to));
+                return;
+            }
+            Worker worker = new Worker(generation);
+            if (level < 0) {
+                for (int i = from; i < to; i++) worker.initialize(i);
+            } else {
+                byte stored = (byte) (level + 1);
+                byte[] values = generation.values;
+                for (int i = from; i < to; i++) {
+                    if (values[i] == stored) worker.unmove(i, level);
+                }
+            }
+        }
+    }
+
+    // A position set up on a small board, and the move loops over it. One per task.
+    private static final class Worker {
+
+        private final Generation generation;
+        private final TableIndex index;
+        private final byte[] values;
+        private final int[] squares;
+        private final int[] scratch;
+        private final int[] saved;
+        // Piece on each square, -1 for none.
+        private final int[] board = new int[64];
+        private final long[] occupiedBy = new long[2];
+        private int sideToMove;
+
+        private Worker(Generation generation) {
+            this.generation = generation;
+            this.index = generation.index;
+            this.values = generation.values;
+            this.squares = new int[index.size];
+            this.scratch = new int[index.size];
+            this.saved = new int[index.size];
+            Arrays.fill(board, -1);
+        }
+
+        // Sets up the position; false when two pieces share a square.
+        private boolean load(int position) {
+            for (int i = 0; i < index.size; i++) board[squares[i]] = -1;
+            sideToMove = index.decode(position, squares);
+            occupiedBy[0] = 0;
+            occupiedBy[1] = 0;
+            boolean distinct = true;
+            for (int i = 0; i < index.size; i++) {
+                long bit = 1L << squares[i];
+                if (((occupiedBy[0] | occupiedBy[1]) & bit) != 0) distinct = false;
+                occupiedBy[index.colors[i]] |= bit;
+                board[squares[i]] = i;
+            }
+            return distinct;
+        }
+
+        // Whether the king of the color is attacked, with skip (a piece just captured, or -1) off the board.
+        private boolean inCheck(int color, long occupied, int skip) {
+            int king = squares[color];
+            for (int i = 0; i < index.size; i++) {
+                if (index.colors[i] != color && i != skip && TableIndex.attacks(index.types[i], squares[i], king, occupied))
+                    return true;
+            }
+            return false;
+        }
+
+        private void initialize(int position) {
+            if (!load(position) || index.index(sideToMove, squares) != position
+                    || (TableIndex.KING[squares[0]] >>> squares[1] & 1) != 0
+                    || inCheck(1 - sideToMove, occupiedBy[0] | occupiedBy[1], -1)) {
+                values[position] = (byte) Tablebase.INVALID;
+                return;
+            }
+            int moves = 0;
+            int quiet = 0;
+            int shortestWin = Integer.MAX_VALUE;
+            int longestLoss = -1;
+            boolean drawn = false;
+            long occupied = occupiedBy[0] | occupiedBy[1];
+            for (int i = 0; i < index.size; i++) {
+                if (index.colors[i] != sideToMove) continue;
+                int from = squares[i];
+                long targets = TableIndex.attacks(index.types[i], from, occupied) & ~occupiedBy[sideToMove];
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    int captured = board[to];
+                    if (!legal(i, from, to, captured, occupied)) continue;
+                    moves++;
+                    if (captured < 0) {
+                        quiet++;
+                        continue;
+                    }
+                    squares[i] = to;
+                    int value = generation.captures[captured].value(squares, 1 - sideToMove, scratch);
+                    squares[i] = from;
+                    if (value == Tablebase.DRAW) drawn = true;
+                    else if ((value - 1) % 2 == 0) shortestWin = Math.min(shortestWin, value);
+                    else longestLoss = Math.max(longestLoss, value);
+                }
+            }
+            int distance;
+            if (moves == 0) {
+                if (!inCheck(sideToMove, occupied, -1)) return;
+                distance = 0;
+            } else if (shortestWin != Integer.MAX_VALUE) {
+                distance = shortestWin;
+            } else if (quiet == 0 && !drawn) {
+                distance = longestLoss;
+            } else {
+                return;
+            }
+            values[position] = (byte) (distance + 1);
+            generation.reached(distance);
+        }
+
+        // Whether the piece may go from, to (capturing captured, or -1) without leaving its king attacked.
+        private boolean legal(int piece, int from, int to, int captured, long occupied) {
+            long after = occupied & ~(1L << from) | 1L << to;
+            squares[piece] = to;
+            boolean legal = !inCheck(sideToMove, after, captured);
+            squares[piece] = from;
+            return legal;
+        }
+
+        // The position is at distance level; goes back over the moves that could have led to it.
+        private void unmove(int position, int level) {
+            load(position);
+            int mover = 1 - sideToMove;
+            long occupied = occupiedBy[0] | occupiedBy[1];
+            for (int i = 0; i < index.size; i++) {
+                if (index.colors[i] != mover) continue;
+                int to = squares[i];
+                // Pieces other than pawns move back the way they move forward; nothing is uncaptured here.
+                long origins = TableIndex.attacks(index.types[i], to, occupied) & ~occupied;
+                for (; origins != 0; origins &= origins - 1) {
+                    int from = Long.numberOfTrailingZeros(origins);
+                    if (i < 2 && (TableIndex.KING[from] >>> squares[1 - i] & 1) != 0) continue;
+                    squares[i] = from;
+                    board[to] = -1;
+                    board[from] = i;
+                    long before = occupied & ~(1L << to) | 1L << from;
+                    // Before the move the side now to move was not to move, so it can't have been in check.
+                    if (!inCheck(sideToMove, before, -1)) {
+                        int predecessor = index.index(mover, squares);
+                        if (level % 2 == 0) win(predecessor, level + 1);
+                        else if (values[predecessor] == Tablebase.DRAW) checkLoss(predecessor, level);
+                    }
+                    squares[i] = to;
+                    board[from] = -1;
+                    board[to] = i;
+                }
+            }
+        }
+
+        private void win(int position, int distance) {
+            int value = values[position] & 0xff;
+            // A win found at init from a capture may be longer than this one.
+            if (value == Tablebase.DRAW || value != Tablebase.INVALID && (value - 1) % 2 == 1 && value > distance + 1) {
+                values[position] = (byte) (distance + 1);
+                generation.reached(distance);
+            }
+        }
+
+        // Some move of the position leads to a win at distance level for the other side: if all of them now
+        // do, it is lost.
+        private void checkLoss(int position, int level) {
+            System.arraycopy(squares, 0, saved, 0, squares.length);
+            int savedSide = sideToMove;
+            load(position);
+            int longest = level;
+            long occupied = occupiedBy[0] | occupiedBy[1];
+            boolean lost = true;
+            moves:
+            for (int i = 0; i < index.size; i++) {
+                if (index.colors[i] != sideToMove) continue;
+                int from = squares[i];
+                long targets = TableIndex.attacks(index.types[i], from, occupied) & ~occupiedBy[sideToMove];
+                for (; targets != 0; targets &= targets - 1) {
+                    int to = Long.numberOfTrailingZeros(targets);
+                    int captured = board[to];
+                    if (!legal(i, from, to, captured, occupied)) continue;
+                    squares[i] = to;
+                    int value = captured < 0
+                            ? values[index.index(1 - sideToMove, squares)] & 0xff
+                            : generation.captures[captured].value(squares, 1 - sideToMove, scratch);
+                    squares[i] = from;
+                    // Only wins already settled count: distances above level may still get shorter.
+                    if (value == Tablebase.DRAW || (value - 1) % 2 == 0 || captured < 0 && value - 1 > level) {
+                        lost = false;
+                        break moves;
+                    }
+                    longest = Math.max(longest, value - 1);
+                }
+            }
+            if (lost) {
+                values[position] = (byte) (longest + 2);
+                generation.reached(longest + 1);
+            }
+            restore(savedSide);
+        }
+
+        // Back to the position being unmoved.
+        private void restore(int savedSide) {
+            for (int i = 0; i < index.size; i++) board[squares[i]] = -1;
+            System.arraycopy(saved, 0, squares, 0, saved.length);
+            sideToMove = savedSide;
+            occupiedBy[0] = 0;
+            occupiedBy[1] = 0;
+            for (int i = 0; i < index.size; i++) {
+                occupiedBy[index.colors[i]] |= 1L << squares[i];
+                board[squares[i]] = i;
+            }
+        }
+    }
+
+    //   TablebaseGenerator <directory> [--threads n] <material>...     e.g. KQvK KRvK KBNvK KQvKR
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TablebaseGenerator <directory> [--threads n] <material>...");
+            System.exit(2);
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<String> materials = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--threads")) threads = Integer.parseInt(args[++i]);
+            else materials.add(args[i]);
+        }
+        Path directory = Files.createDirectories(Path.of(args[0]));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        TablebaseGenerator generator = new TablebaseGenerator(directory, pool);
+        generator.setVerbose(true);
+        long start = System.nanoTime();
+        for (String material : materials) generator.generate(material);
+        pool.shutdown();
+        System.out.printf("done in %,d ms on %d threads%n", (System.nanoTime() - start) / 1_000_000, threads);
+    }
+
+}
@@ -0,0 +1,210 @@
+package chess.validation;
+
+import boardgame.Move;
+import chess.ChessMatch;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.Color;
+import chess.PieceCode;
+import chess.PositionSnapshot;
+import chess.exceptions.ChessException;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Checks many games for legality at once on a fork-join pool, each game on its own ChessMatch. Moves are
+// resolved against generateLegalMovesTo and played with makeMove, so a bad move is a status in the result
+// rather than a ChessException; only an unreadable start FEN still goes through one.
+public class BatchValidator {
+
+    // Games validated by one task without splitting further; a game is tens to hundreds of microseconds.
+    static final int LEAF_SIZE = 8;
+
+    private static final PositionSnapshot INITIAL_POSITION = new ChessMatch().getInitialPosition();
+
+    private static final int MALFORMED = -1;
+    private static final int NO_PIECE = -2;
+    private static final int ILLEGAL = -3;
+    private static final String PROMOTIONS = "  nbrq";
+
+    private final ForkJoinPool pool;
+
+    public BatchValidator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BatchValidator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // One result per game, in the same order.
+    public ValidationResult[] validate(List<MoveSequence> games) {
+        ValidationResult[] results = new ValidationResult[games.size()];
+        if (!games.isEmpty()) pool.invoke(new ValidateTask(games, results, 0, games.size()));
+        return results;
+    }
+
+    // Validates a single game on the calling thread; moves is scratch space of ChessMatch.MAX_MOVES.
+    public static ValidationResult validate(MoveSequence game, int[] moves) {
+        ChessMatch match;
+        if (game.getStartFen() == null) {
+            match = INITIAL_POSITION.toMatch();
+        } else {
+            try {
+                match = ChessMatch.fromFen(game.getStartFen());
+            } catch (ChessException e) {
+                return new ValidationResult(ValidationResult.Status.INVALID_START, 0, null, null);
+            }
+        }
+        for (int i = 0; i < game.size(); i++) {
+            int move = resolve(match, game.getMove(i), moves);
+            if (move < 0) {
+                ValidationResult.Status status = move == MALFORMED ? ValidationResult.Status.MALFORMED_MOVE
+                        : move == NO_PIECE ? ValidationResult.Status.NO_PIECE : ValidationResult.Status.ILLEGAL_MOVE;
+                return new ValidationResult(status, i + 1, game.getMove(i), match.snapshot());
+            }
+            match.makeMove(move);
+        }
+        return new ValidationResult(ValidationResult.Status.VALID, 0, null, match.snapshot(), result(match, moves));
+    }
+
+    private static String result(ChessMatch match, int[] moves) {
+        if (match.generateLegalMoves(moves, 0) == 0) {
+            if (!match.isInCheck()) return "1/2-1/2";
+            return match.getCurrentPlayer() == Color.WHITE ? "0-1" : "1-0";
+        }
+        return match.isThreefoldRepetition() || match.isFiftyMoveRule() ? "1/2-1/2" : "*";
+    }
+
+    // The legal move written as text, or MALFORMED, NO_PIECE or ILLEGAL. No legal move is ever negative.
+    private static int resolve(ChessMatch match, String text, int[] moves) {
+        int length = text.length();
+        if (length != 4 && length != 5) return MALFORMED;
+        int from = square(text.charAt(0), text.charAt(1));
+        int to = square(text.charAt(2), text.charAt(3));
+        if (from < 0 || to < 0) return MALFORMED;
+        int promotion = 0;
+        if (length == 5) {
+            promotion = PROMOTIONS.indexOf(Character.toLowerCase(text.charAt(4)));
+            if (promotion < PieceCode.KNIGHT) return MALFORMED;
+        }
+        int code = match.getPieceCode(from);
+        if (code == PieceCode.EMPTY || PieceCode.color(code) != match.getCurrentPlayer()) return NO_PIECE;
+        int count = match.generateLegalMovesTo(PieceCode.type(code), to, moves, 0);
+        for (int i = 0; i < count; i++) {
+            if (Move.from(moves[i]) == from && ChessMove.promotionType(moves[i]) == promotion) return moves[i];
+        }
+        return ILLEGAL;
+    }
+
+    private static int square(char column, char row) {
+        if (column < 'a' || column > 'h' || row < '1' || row > '8') return -1;
+        return (8 - (row - '0')) * 8 + (column - 'a');
+    }
+
+    private static final class ValidateTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<MoveSequence> games;
+        private final ValidationResult[] results;
+        private final int from;
+        private final int to;
+
+        private ValidateTask(List<MoveSequence> games, ValidationResult[] results, int from, int to) {
+            this.games = games;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_SIZE) {
+                int[] moves = new int[ChessMatch.MAX_MOVES];
+                for (int i = from; i < to; i++) results[i] = validate(games.get(i), moves);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ValidateTask(games, results, from, middle), new ValidateTask(games, results, middle, to));
+        }
+    }
+
+    // Validates random games, one in ten with a bad move somewhere, on 1 and on N threads, and compares with
+    // replaying them through the exception-based performChessMove:
+    //   BatchValidator [games] [plies] [threads]
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 80;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        List<MoveSequence> games = randomGames(count, plies, new SplittableRandom(1));
+
+        long start = System.nanoTime();
+        int failures = 0;
+        for (MoveSequence game : games) failures += replayWithExceptions(game) ? 0 : 1;
+        report("performChessMove, 1 thread", games.size(), System.nanoTime() - start);
+        System.out.printf("  %,d games rejected%n", failures);
+
+        for (int n : new int[]{1, threads}) {
+            ForkJoinPool pool = new ForkJoinPool(n);
+            new BatchValidator(pool).validate(games.subList(0, Math.min(games.size(), 1000)));
+            start = System.nanoTime();
+            ValidationResult[] results = new BatchValidator(pool).validate(games);
+            report("BatchValidator, " + n + " thread" + (n == 1 ? "" : "s"), games.size(), System.nanoTime() - start);
+            pool.shutdown();
+            Map<ValidationResult.Status, Integer> statuses = new EnumMap<>(ValidationResult.Status.class);
+            for (ValidationResult result : results) statuses.merge(result.getStatus(), 1, Integer::sum);
+            System.out.println("  " + statuses);
+        }
+    }
+
+    private static void report(String label, int games, long nanos) {
+        System.out.printf("%s: %,d games in %,d ms (%,d games/s)%n", label, games, nanos / 1_000_000,
+                games * 1_000_000_000L / Math.max(1, nanos));
+    }
+
+    private static boolean replayWithExceptions(MoveSequence game) {
+        ChessMatch match = new ChessMatch();
+        try {
+            for (int i = 0; i < game.size(); i++) {
+                String move = game.getMove(i);
+                match.performChessMove(new ChessPosition(move.charAt(0), move.charAt(1) - '0'),
+                        new ChessPosition(move.charAt(2), move.charAt(3) - '0'));
+                if (move.length() == 5 && match.getPromoted() != null)
+                    match.replacePromotedPiece(String.valueOf(move.charAt(4)));
+            }
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private static List<MoveSequence> randomGames(int count, int plies, SplittableRandom random) {
+        List<MoveSequence> games = new ArrayList<>(count);
+        int[] moves = new int[ChessMatch.MAX_MOVES];
+        for (int g = 0; g < count; g++) {
+            ChessMatch match = new ChessMatch();
+            List<String> played = new ArrayList<>();
+            for (int ply = 0; ply < plies; ply++) {
+                int n = match.generateLegalMoves(moves, 0);
+                if (n == 0) break;
+                int move = moves[random.nextInt(n)];
+                played.add(ChessMove.toString(move));
+                match.makeMove(move);
+            }
+            if (g % 10 == 9 && !played.isEmpty()) {
+                int ply = random.nextInt(played.size());
+                String move = played.get(ply);
+                // Same piece, some other square: usually a move it can't make.
+                played.set(ply, move.substring(0, 2) + (char) ('a' + random.nextInt(8)) + (char) ('1' + random.nextInt(8)));
+            }
+            games.add(new MoveSequence(null, played));
+        }
+        return games;
+    }
+}
@@ -0,0 +1,39 @@
+package chess.validation;
+
+import java.util.List;
+
+// A game to validate: the FEN it starts from (null for the initial setup) and its moves in long algebraic
+// notation as ChessMove.toString writes them, e.g. "e2e4", "e1g1", "e7e8q".
+public final class MoveSequence {
+
+    private final String startFen;
+    private final String[] moves;
+
+    public MoveSequence(String startFen, String... moves) {
+        this.startFen = startFen;
+        this.moves = moves.clone();
+    }
+
+    public MoveSequence(String startFen, List<String> moves) {
+        this.startFen = startFen;
+        this.moves = moves.toArray(new String[0]);
+    }
+
+    // Moves separated by whitespace, from the initial setup.
+    public static MoveSequence parse(String moves) {
+        String trimmed = moves.trim();
+        return new MoveSequence(null, trimmed.isEmpty() ? new String[0] : trimmed.split("\\s+"));
+    }
+
+    public String getStartFen() {
+        return startFen;
+    }
+
+    public int size() {
+        return moves.length;
+    }
+
+    public String getMove(int index) {
+        return moves[index];
+    }
+}
@@ -0,0 +1,74 @@
+package chess.validation;
+
+import chess.PositionSnapshot;
+
+// Outcome of validating one MoveSequence. On the first bad move validation stops: getPly() is its number
+// (1 for the first move of the sequence) and getFinalPosition() the position before it.
+public final class ValidationResult {
+
+    public enum Status {
+        VALID,
+        // The start FEN could not be read.
+        INVALID_START,
+        // Not long algebraic notation at all.
+        MALFORMED_MOVE,
+        // The source square is empty or holds a piece of the side not to move.
+        NO_PIECE,
+        // The piece can't go there, or the move leaves its own king in check, or the game was already over.
+        ILLEGAL_MOVE
+    }
+
+    private final Status status;
+    private final int ply;
+    private final String move;
+    private final PositionSnapshot finalPosition;
+    private final String result;
+
+    ValidationResult(Status status, int ply, String move, PositionSnapshot finalPosition) {
+        this(status, ply, move, finalPosition, null);
+    }
+
+    ValidationResult(Status status, int ply, String move, PositionSnapshot finalPosition, String result) {
+        this.status = status;
+        this.ply = ply;
+        this.move = move;
+        this.finalPosition = finalPosition;
+        this.result = result;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    // Number of the first bad move, 0 when the sequence is valid or its start is not.
+    public int getPly() {
+        return ply;
+    }
+
+    // The first bad move as given, null when there is none.
+    public String getMove() {
+        return move;
+    }
+
+    // Position after the last good move; null when the start position was invalid.
+    public PositionSnapshot getFinalPosition() {
+        return finalPosition;
+    }
+
+    // How the game stands after a valid sequence, as in PGN: "1-0", "0-1", "1/2-1/2" for mate, stalemate,
+    // threefold repetition or the fifty-move rule, "*" when it goes on; null when the sequence is not valid.
+    public String getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        if (status == Status.VALID) return "VALID " + result + " " + finalPosition.toFen();
+        if (status == Status.INVALID_START) return "INVALID_START";
+        return status + " at ply " + ply + " (" + move + ")";
+    }
+}